@@ -0,0 +1,26 @@
+#!/bin/bash
+# 生成 AppCDS 归档：把框架 (aiFramework.jar、jagoclient.jar) 和 stud 的类预先解析好存成共享归档，
+# 以后启动时直接映射进内存，省掉类加载和校验。需要 JDK 13 以上（动态归档 -XX:ArchiveClassesAtExit）。
+#
+# CDS 只收 jar 里的类，所以先把编译好的类打成 out/stud.jar，再用 StartupBench 下一步棋作训练运行，
+# 退出时写出 out/stud.jsa；最后各起 RUNS 个进程，对比有无归档时到第一手的时间。
+#
+# 用法：scripts/appcds.sh [编译输出目录（默认 out/production/AiDeveloper）] [棋手（默认 stud.g09.AI）]
+# 之后运行任何入口时加上 -XX:SharedArchiveFile=out/stud.jsa，类路径须与下面的 CP 相同。
+set -e
+cd "$(dirname "$0")/.."
+
+CLASSES=${1:-out/production/AiDeveloper}
+PLAYER=${2:-stud.g09.AI}
+RUNS=${RUNS:-5}
+CP=out/stud.jar:lib/aiFramework.jar:lib/jagoclient.jar
+
+jar cf out/stud.jar -C "$CLASSES" .
+rm -f out/stud.jsa
+java -XX:ArchiveClassesAtExit=out/stud.jsa -Xlog:cds=off -cp "$CP" stud.tools.StartupBench "$PLAYER" > /dev/null
+echo "archive: $(du -h out/stud.jsa | cut -f1)"
+
+echo "without archive:"
+for i in $(seq "$RUNS"); do java -Xshare:auto -cp "$CP" stud.tools.StartupBench "$PLAYER"; done
+echo "with archive:"
+for i in $(seq "$RUNS"); do java -XX:SharedArchiveFile=out/stud.jsa -cp "$CP" stud.tools.StartupBench "$PLAYER"; done
@@ -5,8 +5,19 @@ import core.game.ui.Configuration;
 import core.match.GameEvent;
 import core.match.Match;
 import core.player.Player;
+import stud.core.EngineParams;
+import stud.core.Instrumented;
+import stud.tools.GameRecord;
+import stud.tools.GameRecordWriter;
+import stud.tools.ResultStore;
+import stud.tools.Sprt;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * 六子棋AI评测程序
@@ -17,6 +28,8 @@ public class AITester {
         zeroCarnival(); //随机棋手大狂欢
         //oucLeague(); //海之子联赛
         //oneMatch();    //自组织一场比赛（两个棋手先后手各下一局，共下两局棋）
+        //paramSweep(); //同一引擎不同参数之间的对比
+        //sprtTest();   //候选引擎对基准引擎的回归测试，结论明确就提前停止
         double elapsedTime = timer.elapsedTime();
         System.out.printf("%.4f", elapsedTime);
     }
@@ -39,6 +52,22 @@ public class AITester {
         //n个棋手，共下C(n,2)*500局棋，每个棋手下500*(n-1)局棋
         event.carnivalRun(500);
         event.showResults();
+        ResultStore.append(event.getName(), event.getPlayers()); //追加到结果库，java stud.tools.Ratings 查看历史等级分
+        //saveRecords(event.getPlayers(), "carnival.c6g"); //保存棋谱，供调参和开局库使用
+    }
+
+    //把棋手们下过的棋追加写入棋谱文件（同一局会出现在双方的结果里，只写一次）
+    private static void saveRecords(ArrayList<Player> players, String file) {
+        Set<GameResult> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+        try (GameRecordWriter out = new GameRecordWriter(Paths.get(file))) {
+            for (Player player : players) {
+                for (GameResult result : player.gameResults()) {
+                    if (saved.add(result)) out.write(GameRecord.of(result));
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     //生成自己的棋手
@@ -55,6 +84,36 @@ public class AITester {
         return players;
 
     }
+    //参数扫描：同一个引擎用不同的候选数/深度互相对局，比较棋力和每步用时
+    private static void paramSweep() {
+        Configuration.GUI = false;
+        ArrayList<Player> players = new ArrayList<>();
+        for (int topK : new int[]{10, 15, 20}) {
+            for (int depth : new int[]{2, 3}) {
+                EngineParams params = EngineParams.forEngine("G09")
+                        .set("CandidateTopK", topK).set("SearchDepth", depth)
+                        .label("k" + topK + "d" + depth);
+                players.add(new stud.g09.AI(params));
+            }
+        }
+        GameEvent event = new GameEvent("Parameter Sweep", players);
+        event.carnivalRun(20);
+        event.showResults();
+        ResultStore.append(event.getName(), players);
+
+        for (Player player : players) {
+            System.out.printf("%-12s %s%n", player.name(), ((Instrumented) player).stats());
+        }
+    }
+
+    //SPRT 回归测试：H0 为候选不强于基准 (Elo<=0)，H1 为候选强 10 Elo 以上
+    private static void sprtTest() {
+        Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+        sprt.run(() -> new stud.g09.AI(),
+                () -> new stud.g09.AI(EngineParams.forEngine("G09").set("CandidateTopK", 20).label("cand")),
+                Runtime.getRuntime().availableProcessors(), 20000);
+    }
+
     //海之子联赛
     private static void oucLeague() throws CloneNotSupportedException {
         Configuration.GUI = true; //使用GUI
@@ -65,6 +124,7 @@ public class AITester {
         event.hostGames(Configuration.HOST_ID);
 
         event.showHostResults(Configuration.HOST_ID);
+        ResultStore.append(event.getName(), event.getPlayers());
     }
     //自组织一场比赛
     private static void oneMatch(){
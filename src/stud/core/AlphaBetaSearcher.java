@@ -0,0 +1,518 @@
+package stud.core;
+
+/**
+ * 负极大值形式的 Alpha-Beta 搜索，带置换表，迭代加深。
+ *
+ * 每完成一轮迭代就把最好的着法登记到 Deadline；时间到了就放弃当前这一轮，返回上一轮的结果。
+ *
+ * 叶子上不直接估值，而是做只含强制着法的静态搜索 (quiescence)：对方有威胁就只能堵，
+ * 否则可以停在静态估值上 (stand pat)，也可以继续冲四（只考虑一次造出两个以上威胁窗口的）。静态搜索有自己的深度和节点预算，
+ * 预算用完就退回静态估值。
+ *
+ * 三种向前裁剪，各自可以单独开关，并统计触发次数：
+ * <ul>
+ *   <li>LMR：排序靠后（第 LMR_FROM 个以后）且不造威胁的着法先少搜一层，超过 alpha 再按原深度重搜；</li>
+ *   <li>空着裁剪：双方都没有威胁窗口、静态估值已不低于 beta 时让对方连走一手，
+ *       浅搜仍不低于 beta 就再做一次不带空着的验证搜索，通过了才剪掉；</li>
+ *   <li>ProbCut：先用浅 PROBCUT_REDUCTION 层的零窗口搜索看能否超过 beta + 边界值，能就认为深搜也会截断。</li>
+ * </ul>
+ * 有了 LMR，MaxMoves 可以放宽一些，排在后面的着法不再被直接截掉，只是搜得浅。
+ *
+ * 内部节点默认用 MovePicker 分阶段给出着法（置换表着法 → 成六 → 防守 → 杀手着法 → 其余），
+ * 置换表着法或杀手着法就截断时，不必再给全部候选点打分。
+ *
+ * 胜负判断直接用棋盘的威胁窗口：轮到的一方有威胁窗口就是一步胜，
+ * 对方已经成六就是负；胜负分按距根的步数修正，尽快取胜、尽量拖延失败。
+ */
+public class AlphaBetaSearcher implements Searcher {
+
+    public static final int WIN = 1_000_000_000;
+    /** 超过这个值的分数都是算出胜负的 */
+    public static final int WIN_BOUND = WIN - 1000;
+
+    private static final int MAX_PLY = 64;
+    // 静态搜索里参与组合冲四/补堵的点数
+    private static final int Q_POINTS = 10;
+    private static final int Q_PARTNERS = 4;
+    private static final int Q_MOVES = 4;
+    // 向前裁剪
+    private static final int LMR_FROM = 4;
+    private static final int NULL_REDUCTION = 1;
+    private static final int PROBCUT_REDUCTION = 2;
+
+    private final Evaluator evaluator;
+    private final MoveGenerator generator;
+    private final TranspositionTable tt;
+    private final EngineStats stats;
+    private final Deadline deadline;
+    private final int[][] moves;
+    private final int[] cellBuf = new int[EngineBoard.CELLS];
+    private final int[] scoreBuf = new int[EngineBoard.CELLS];
+    private final int[][] qPoints = new int[MAX_PLY][Q_POINTS];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private boolean staged = true;
+    private boolean useKillers;
+    private TranspositionTable knowledge;
+    private int knowledgeDepth;
+
+    private int qDepth = 4;
+    private int qBudget = 20000;
+    private int qNodes;
+    private long qTotal;
+
+    private boolean lmr;
+    private boolean nullMove;
+    private boolean probCut;
+    private int probCutMargin;
+    private final long[] pruning = new long[PRUNING_COUNTERS];
+
+    // pruning[] 的下标：尝试次数和成功次数
+    private static final int LMR_TRIED = 0, LMR_RESEARCHED = 1;
+    private static final int NULL_TRIED = 2, NULL_CUT = 3;
+    private static final int PROBCUT_TRIED = 4, PROBCUT_CUT = 5;
+    private static final int STAGED_NODES = 6, STAGED_LAZY = 7;
+    private static final int PRUNING_COUNTERS = 8;
+
+    private EngineBoard board;
+    private int rootPly;
+    private int bestValue;
+
+    /** 多主变搜索的一行：根节点的一手、精确分数（轮到的一方视角）、完成的深度和主变（第一手就是 move） */
+    public static final class RootLine {
+        public final int move;
+        public final int value;
+        public final int depth;
+        public final int[] pv;
+
+        RootLine(int move, int value, int depth, int[] pv) {
+            this.move = move;
+            this.value = value;
+            this.depth = depth;
+            this.pv = pv;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int m : pv) sb.append(sb.length() > 0 ? " " : "").append(Moves.toString(m));
+            return Moves.toString(move) + " " + value + " (depth " + depth + ") " + sb;
+        }
+    }
+
+    public AlphaBetaSearcher(Evaluator evaluator, MoveGenerator generator, TranspositionTable tt,
+                             EngineStats stats, Deadline deadline, int maxMoves) {
+        this.evaluator = evaluator;
+        this.generator = generator;
+        this.tt = tt;
+        this.stats = stats;
+        this.deadline = deadline;
+        // 防守着法可能比常规着法多，留足余量
+        this.moves = new int[MAX_PLY][Math.max(maxMoves, 256)];
+        for (int i = 0; i < MAX_PLY; i++) pickers[i] = new MovePicker(generator, Math.max(maxMoves, 256));
+    }
+
+    /**
+     * 内部节点是否分阶段生成着法（关掉则每个节点先生成全部着法再搜），
+     * 以及是否记录杀手着法并在生成的列表里把它们提前。
+     */
+    public AlphaBetaSearcher staged(boolean staged, boolean killers) {
+        this.staged = staged;
+        this.useKillers = killers;
+        return this;
+    }
+
+    /** 设置静态搜索的最大深度（强制着法的手数，0 关闭）和每次 search 的节点预算 */
+    public AlphaBetaSearcher quiescence(int depth, int budget) {
+        this.qDepth = depth;
+        this.qBudget = budget;
+        return this;
+    }
+
+    /**
+     * 向前裁剪开关。
+     * @param margin ProbCut 的边界值（估值单位），浅搜超过 beta + margin 才剪
+     */
+    public AlphaBetaSearcher pruning(boolean lmr, boolean nullMove, boolean probCut, int margin) {
+        this.lmr = lmr;
+        this.nullMove = nullMove;
+        this.probCut = probCut;
+        this.probCutMargin = margin;
+        return this;
+    }
+
+    /** 累计的裁剪统计：LMR 减深/重搜、空着尝试/剪枝、ProbCut 尝试/剪枝、分阶段生成时省掉生成器调用的节点 */
+    public String pruningStats() {
+        return String.format("lmr=%d/%d re-searched, null=%d/%d cut, probcut=%d/%d cut, staged=%d/%d not generated",
+                pruning[LMR_TRIED], pruning[LMR_RESEARCHED], pruning[NULL_TRIED], pruning[NULL_CUT],
+                pruning[PROBCUT_TRIED], pruning[PROBCUT_CUT], pruning[STAGED_NODES], pruning[STAGED_LAZY]);
+    }
+
+    public void resetPruningStats() {
+        java.util.Arrays.fill(pruning, 0);
+    }
+
+    /**
+     * 置换表里没有时再查的持久知识（KnowledgeFile 里的深层条目），只在剩余深度不小于 minDepth 的节点上查，
+     * 查到就拷进置换表。传 null 关闭。
+     */
+    public AlphaBetaSearcher knowledge(TranspositionTable deep, int minDepth) {
+        this.knowledge = deep;
+        this.knowledgeDepth = minDepth;
+        return this;
+    }
+
+    /** 累计的静态搜索节点数 */
+    public long quiescenceNodes() {
+        return qTotal;
+    }
+
+    /** 最近一次 search 的根节点分数（轮到的一方视角） */
+    public int bestValue() {
+        return bestValue;
+    }
+
+    @Override
+    public int search(EngineBoard board, int depth) {
+        this.board = board;
+        tt.newSearch();
+        qNodes = 0;
+        for (int[] k : killers) java.util.Arrays.fill(k, Moves.NONE);
+        int best = Moves.NONE;
+        for (int d = 1; d <= depth; d++) {
+            if (d > 1 && deadline.softExpired()) break;
+            try {
+                int m = searchRoot(d);
+                if (m == Moves.NONE) break;
+                best = m;
+                deadline.offer(best);
+                // 已经算出胜负，不必再加深
+                if (Math.abs(bestValue) > WIN_BOUND) break;
+            } catch (Deadline.SearchTimeout e) {
+                // 悔掉搜索中途落下的子，回到根局面
+                while (board.ply() > rootPly) board.undo();
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 多主变搜索：一次迭代加深给出根节点最好的 count 手，按分数从高到低，各带精确分数和主变。
+     *
+     * 根节点每手都用 (当前第 count 好的分数, +∞) 的窗口搜：进不了前 count 的着法照常被剪，
+     * 进得了的分数在窗口之内，就是精确值。比排除着法后重复搜 count 次省得多，而且各手共用同一张置换表。
+     * 下一轮迭代按上一轮的名次排根着法。主变从置换表里顺着最好着法取，最长 depth 手。
+     * 时间到了返回最后一轮完整迭代的结果；一轮都没完成时返回空表。
+     */
+    public java.util.List<RootLine> searchLines(EngineBoard board, int depth, int count) {
+        this.board = board;
+        tt.newSearch();
+        qNodes = 0;
+        for (int[] k : killers) java.util.Arrays.fill(k, Moves.NONE);
+        java.util.List<RootLine> lines = java.util.Collections.emptyList();
+        int[] order = new int[0];
+        for (int d = 1; d <= depth; d++) {
+            if (d > 1 && deadline.softExpired()) break;
+            try {
+                java.util.List<RootLine> next = searchRootLines(d, Math.max(1, count), order);
+                if (next.isEmpty()) break;
+                lines = next;
+                order = new int[lines.size()];
+                for (int i = 0; i < order.length; i++) order[i] = lines.get(i).move;
+                bestValue = lines.get(0).value;
+                deadline.offer(lines.get(0).move);
+                // 最好的一手已经算出胜负，不必再加深
+                if (Math.abs(bestValue) > WIN_BOUND) break;
+            } catch (Deadline.SearchTimeout e) {
+                while (board.ply() > rootPly) board.undo();
+                break;
+            }
+        }
+        return lines;
+    }
+
+    private java.util.List<RootLine> searchRootLines(int depth, int count, int[] order) {
+        rootPly = board.ply();
+        int[] list = moves[0];
+        int n = generator.generate(board, list);
+        if (n == 0) return java.util.Collections.emptyList();
+        orderByTable(list, n);
+        for (int i = order.length - 1; i >= 0; i--) promote(list, n, order[i]);
+
+        // 前 count 名，按分数从高到低
+        int[] topMoves = new int[count], topValues = new int[count];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            int alpha = k < count ? -WIN - 1 : topValues[count - 1];
+            board.play(list[i]);
+            int v = -negamax(depth - 1, -WIN - 1, -alpha, 1, true);
+            board.undo();
+            if (v <= alpha) continue;
+            int j = Math.min(k, count - 1);
+            while (j > 0 && topValues[j - 1] < v) {
+                topMoves[j] = topMoves[j - 1];
+                topValues[j] = topValues[j - 1];
+                j--;
+            }
+            topMoves[j] = list[i];
+            topValues[j] = v;
+            if (k < count) k++;
+        }
+        tt.store(board.hash(), depth, toTable(topValues[0], 0), TranspositionTable.EXACT, topMoves[0]);
+
+        java.util.List<RootLine> lines = new java.util.ArrayList<>(k);
+        for (int i = 0; i < k; i++) lines.add(new RootLine(topMoves[i], topValues[i], depth, principalVariation(topMoves[i], depth)));
+        return lines;
+    }
+
+    /** 走 first 之后顺着置换表里的最好着法往下取，遇到空缺、不合法或者分出胜负就停 */
+    private int[] principalVariation(int first, int depth) {
+        int[] pv = new int[Math.max(1, depth)];
+        int n = 0;
+        pv[n++] = first;
+        board.play(first);
+        while (n < pv.length && board.winner() == EngineBoard.EMPTY) {
+            long e = tt.probe(board.hash());
+            if (e == TranspositionTable.MISS) break;
+            int m = TranspositionTable.move(e);
+            if (m == Moves.NONE || board.get(Moves.first(m)) != EngineBoard.EMPTY
+                    || board.get(Moves.second(m)) != EngineBoard.EMPTY) break;
+            board.play(m);
+            pv[n++] = m;
+        }
+        for (int i = 0; i < n; i++) board.undo();
+        return java.util.Arrays.copyOf(pv, n);
+    }
+
+    private int searchRoot(int depth) {
+        rootPly = board.ply();
+        int[] list = moves[0];
+        int n = generator.generate(board, list);
+        if (n == 0) return Moves.NONE;
+        orderByTable(list, n);
+
+        int best = list[0];
+        int alpha = -WIN - 1, beta = WIN + 1;
+        for (int i = 0; i < n; i++) {
+            board.play(list[i]);
+            int v = -negamax(depth - 1, -beta, -alpha, 1, true);
+            board.undo();
+            if (v > alpha) {
+                alpha = v;
+                best = list[i];
+            }
+        }
+        bestValue = alpha;
+        tt.store(board.hash(), depth, toTable(alpha, 0), TranspositionTable.EXACT, best);
+        return best;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, boolean allowNull) {
+        stats.node();
+        deadline.check();
+        int me = board.sideToMove(), op = 3 - me;
+        if (board.winner() != EngineBoard.EMPTY) return -(WIN - ply);
+        if (board.fours(me) > 0) return WIN - ply - 1;
+        if (ply >= MAX_PLY - 1) return evaluator.evaluate(board, me);
+        if (depth <= 0) return quiesce(alpha, beta, ply, 0);
+
+        long key = board.hash();
+        int ttMove = Moves.NONE;
+        long e = probe(key, depth);
+        if (e != TranspositionTable.MISS) {
+            ttMove = TranspositionTable.move(e);
+            if (TranspositionTable.depth(e) >= depth) {
+                int v = fromTable(TranspositionTable.value(e), ply);
+                int flag = TranspositionTable.flag(e);
+                if (flag == TranspositionTable.EXACT) return v;
+                if (flag == TranspositionTable.LOWER && v >= beta) return v;
+                if (flag == TranspositionTable.UPPER && v <= alpha) return v;
+            }
+        }
+
+        boolean threatened = board.fours(op) > 0;
+        boolean decided = Math.abs(beta) > WIN_BOUND;
+
+        // 空着裁剪：让对方连走一手还不低于 beta，局面已经好到可以剪
+        if (nullMove && allowNull && !threatened && !decided && depth > NULL_REDUCTION
+                && evaluator.evaluate(board, me) >= beta) {
+            pruning[NULL_TRIED]++;
+            board.pass();
+            int v = -negamax(depth - 1 - NULL_REDUCTION, -beta, -beta + 1, ply + 1, false);
+            board.undo();
+            // 验证：同一局面不带空着浅搜一遍，避免“轮到走反而吃亏”的局面被误剪
+            if (v >= beta && negamax(depth - NULL_REDUCTION, beta - 1, beta, ply, false) >= beta) {
+                pruning[NULL_CUT]++;
+                return beta;
+            }
+        }
+
+        // ProbCut：浅搜已经远超 beta，认为深搜也会截断
+        if (probCut && !threatened && !decided && depth > PROBCUT_REDUCTION) {
+            pruning[PROBCUT_TRIED]++;
+            int bound = beta + probCutMargin;
+            if (negamax(depth - PROBCUT_REDUCTION, bound - 1, bound, ply, allowNull) >= bound) {
+                pruning[PROBCUT_CUT]++;
+                return beta;
+            }
+        }
+
+        MovePicker picker = pickers[ply];
+        int[] list = moves[ply];
+        int n = 0;
+        if (staged) {
+            picker.start(board, ttMove, killers[ply]);
+        } else {
+            n = generator.generate(board, list);
+            if (ttMove != Moves.NONE) promote(list, n, ttMove);
+        }
+
+        int alpha0 = alpha;
+        int bestVal = -WIN - 1, best = Moves.NONE;
+        int i = 0;
+        for (; ; i++) {
+            int move = staged ? picker.next() : i < n ? list[i] : Moves.NONE;
+            if (move == Moves.NONE) break;
+            board.play(move);
+            int v;
+            // LMR：靠后的安静着法先少搜一层，超过 alpha 再按原深度重搜
+            if (lmr && i >= LMR_FROM && depth >= 2 && !threatened && board.fours(me) == 0) {
+                pruning[LMR_TRIED]++;
+                v = -negamax(depth - 2, -alpha - 1, -alpha, ply + 1, true);
+                if (v > alpha) {
+                    pruning[LMR_RESEARCHED]++;
+                    v = -negamax(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            } else {
+                v = -negamax(depth - 1, -beta, -alpha, ply + 1, true);
+            }
+            board.undo();
+            if (v > bestVal) {
+                bestVal = v;
+                best = move;
+            }
+            if (bestVal > alpha) alpha = bestVal;
+            if (alpha >= beta) {
+                if (useKillers && !threatened) killer(ply, move);
+                break;
+            }
+        }
+        if (staged) {
+            pruning[STAGED_NODES]++;
+            if (!picker.generated()) pruning[STAGED_LAZY]++;
+        }
+        if (best == Moves.NONE) return evaluator.evaluate(board, me);
+
+        int flag = bestVal <= alpha0 ? TranspositionTable.UPPER
+                : bestVal >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        tt.store(key, depth, toTable(bestVal, ply), flag, best);
+        return bestVal;
+    }
+
+    /**
+     * 静态搜索：只走强制着法。
+     * 对方有威胁窗口时只能堵（堵不住就是负）；否则先以静态估值为下限，再试冲四。
+     */
+    private int quiesce(int alpha, int beta, int ply, int qply) {
+        stats.node();
+        deadline.check();
+        qTotal++;
+        int me = board.sideToMove(), op = 3 - me;
+        if (board.winner() != EngineBoard.EMPTY) return -(WIN - ply);
+        if (board.fours(me) > 0) return WIN - ply - 1;
+
+        boolean exhausted = qply >= qDepth || ++qNodes > qBudget || ply >= MAX_PLY - 1;
+        int[] list = moves[ply];
+        int[] pts = qPoints[ply];
+
+        if (board.fours(op) > 0) {
+            if (exhausted) return evaluator.evaluate(board, me);
+            int np = Threats.topPoints(board, me, Q_PARTNERS, cellBuf, scoreBuf);
+            System.arraycopy(cellBuf, 0, pts, 0, np);
+            int n = Threats.defences(board, op, pts, np, list);
+            // 两子堵不住，对方下一手成六
+            if (n == 0) return -(WIN - ply - 2);
+            n = Math.min(n, Q_MOVES);
+            int best = -WIN - 1;
+            for (int i = 0; i < n; i++) {
+                board.play(list[i]);
+                int v = -quiesce(-beta, -alpha, ply + 1, qply + 1);
+                board.undo();
+                if (v > best) best = v;
+                if (best > alpha) alpha = best;
+                if (alpha >= beta) break;
+            }
+            return best;
+        }
+
+        int stand = evaluator.evaluate(board, me);
+        if (stand >= beta || exhausted) return stand;
+        if (stand > alpha) alpha = stand;
+
+        int np = Threats.attackPoints(board, me, Q_POINTS, cellBuf, scoreBuf);
+        System.arraycopy(cellBuf, 0, pts, 0, np);
+        // 只冲能一次造出两个以上威胁窗口的，单个威胁对方随手就堵了，留给主搜索
+        int n = Math.min(Q_MOVES, Threats.attacks(board, me, pts, np, 2, list));
+        int best = stand;
+        for (int i = 0; i < n; i++) {
+            board.play(list[i]);
+            int v = -quiesce(-beta, -alpha, ply + 1, qply + 1);
+            board.undo();
+            if (v > best) best = v;
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+        }
+        return best;
+    }
+
+    /** 记下引起截断的安静着法，同一层的兄弟节点先试它 */
+    private void killer(int ply, int move) {
+        int[] k = killers[ply];
+        if (MovePicker.same(k[0], move)) return;
+        k[1] = k[0];
+        k[0] = move;
+    }
+
+    /** 根节点：上一步留下的置换表着法先搜 */
+    private void orderByTable(int[] list, int n) {
+        long e = probe(board.hash(), Integer.MAX_VALUE);
+        if (e != TranspositionTable.MISS) promote(list, n, TranspositionTable.move(e));
+    }
+
+    /** 先查置换表，没有再查持久知识 */
+    private long probe(long key, int depth) {
+        long e = tt.probe(key);
+        if (e != TranspositionTable.MISS || knowledge == null || depth < knowledgeDepth) return e;
+        e = knowledge.probe(key);
+        if (e != TranspositionTable.MISS) {
+            tt.store(key, TranspositionTable.depth(e), TranspositionTable.value(e),
+                    TranspositionTable.flag(e), TranspositionTable.move(e));
+        }
+        return e;
+    }
+
+    /** 把 move 挪到最前面（只在它本来就在列表里时） */
+    private static void promote(int[] list, int n, int move) {
+        for (int i = 0; i < n; i++) {
+            if (list[i] == move) {
+                System.arraycopy(list, 0, list, 1, i);
+                list[0] = move;
+                return;
+            }
+        }
+    }
+
+    // 胜负分存表时换成相对当前节点的距离，取出时再换回相对根的距离
+    private static int toTable(int v, int ply) {
+        if (v > WIN_BOUND) return v + ply;
+        if (v < -WIN_BOUND) return v - ply;
+        return v;
+    }
+
+    private static int fromTable(int v, int ply) {
+        if (v > WIN_BOUND) return v - ply;
+        if (v < -WIN_BOUND) return v + ply;
+        return v;
+    }
+}
@@ -0,0 +1,103 @@
+package stud.core;
+
+import core.board.Board;
+import core.board.PieceColor;
+import core.game.Move;
+
+import java.util.List;
+
+/**
+ * 框架棋盘 (core.board.Board) 到引擎棋盘 (FastBoard) 的同步。
+ *
+ * 同一盘棋里只把框架着法表中新增的着法（对方的一手和自己上一步的一手）用 FastBoard.play 补上，
+ * 窗口计数、棋型、近邻和 Zobrist 键都随之增量更新，不再每步扫 361 格重建。
+ * 换了棋盘对象、着法表变短（悔棋）或者最后一手对不上时才整盘重建；
+ * 重建时轮到哪一方由着法数决定：白方先走，每手两子。
+ *
+ * 打开检查（引擎参数 CheckSync = true）后，每次同步完都和框架棋盘逐格比对，
+ * 不一致就打印出来并重建，用于调试。
+ */
+public class BoardSync {
+
+    private final FastBoard fast;
+    private final boolean check;
+    private final byte[] stones = new byte[EngineBoard.CELLS];
+
+    private Board source;
+    private int applied;                 // 已经同步到 fast 上的框架着法数
+    private int lastMove = Moves.NONE;   // 其中最后一手，用来发现着法表被改写
+    private long rebuilds;
+    private long deltas;
+    private long mismatches;
+
+    public BoardSync(FastBoard fast, boolean check) {
+        this.fast = fast;
+        this.check = check;
+    }
+
+    /** 让 fast 与 board 一致 */
+    public void update(Board board) {
+        List<Move> list = board.getMoveList();
+        int n = list.size();
+        if (board != source || n < applied
+                || (applied > 0 && Moves.of(list.get(applied - 1)) != lastMove)) {
+            rebuild(board);
+        } else {
+            for (int i = applied; i < n; i++) {
+                fast.play(Moves.of(list.get(i)));
+                deltas++;
+            }
+            applied = n;
+            if (n > 0) lastMove = Moves.of(list.get(n - 1));
+        }
+        if (check && !consistent(board)) {
+            mismatches++;
+            System.err.println("board out of sync after " + n + " moves, rebuilding");
+            rebuild(board);
+        }
+    }
+
+    /** 按框架棋盘逐格重建 */
+    public void rebuild(Board board) {
+        List<Move> list = board.getMoveList();
+        int n = list.size();
+        for (int i = 0; i < EngineBoard.CELLS; i++) stones[i] = (byte) color(board.get(i));
+        fast.load(stones, sideAfter(n));
+        source = board;
+        applied = n;
+        lastMove = n > 0 ? Moves.of(list.get(n - 1)) : Moves.NONE;
+        rebuilds++;
+    }
+
+    /** 逐格比对棋子和轮到的一方 */
+    public boolean consistent(Board board) {
+        if (fast.sideToMove() != color(board.whoseMove())) return false;
+        for (int i = 0; i < EngineBoard.CELLS; i++) {
+            if (fast.get(i) != color(board.get(i))) return false;
+        }
+        return true;
+    }
+
+    /** 走了 moves 手之后轮到谁：白方先走 */
+    public static int sideAfter(int moves) {
+        return moves % 2 == 0 ? EngineBoard.WHITE : EngineBoard.BLACK;
+    }
+
+    public static int color(PieceColor c) {
+        if (c == PieceColor.BLACK) return EngineBoard.BLACK;
+        if (c == PieceColor.WHITE) return EngineBoard.WHITE;
+        return EngineBoard.EMPTY;
+    }
+
+    public long rebuilds() {
+        return rebuilds;
+    }
+
+    public long deltas() {
+        return deltas;
+    }
+
+    public long mismatches() {
+        return mismatches;
+    }
+}
@@ -0,0 +1,191 @@
+package stud.core;
+
+/**
+ * 两阶段条件着法生成：先选第一子，再在“第一子已落下”的局面里选第二子。
+ * 有威胁时第一子真的摆到棋盘上更新威胁状态；平静局面里落下第一子后的潜力直接用
+ * EngineBoard.interaction 修正得到，和真落子算出来的一样，但不用更新棋盘。
+ *
+ * PairMoveGenerator 在落子前就给所有点打好分再两两组合，看不到第二子对第一子的依赖（连成一片、补成双威胁），
+ * 候选数也随 topK 平方增长。这里第一子只取 firstK 个，每个第一子之后只给 secondK 个第二子，
+ * 第二子的分数是第一子落下后重新算的潜力，所以分支少而准。
+ * <ol>
+ *     <li>能一手成六就只给这一手；</li>
+ *     <li>对方有威胁窗口时两子都限制在相关区（对方威胁窗口里的空格）：第一子在相关区里选，
+ *         落下后威胁已经全堵住，第二子就可以自由选（通常是反击），否则第二子也只能在剩下的相关区里选，
+ *         并且必须把剩下的威胁全部堵住；</li>
+ *     <li>否则第一子取双方潜力之和最高的 firstK 个点，第二子在“原候选点 + 第一子所在四条线上距离 5 以内的空格”中
+ *         按落下第一子后的潜力重新排序，取前 secondK 个。</li>
+ * </ol>
+ * 结果去重（两子顺序无关）后按分数排序，最多保留 maxMoves 个。
+ */
+public class ConditionalMoveGenerator implements MoveGenerator {
+
+    private static final int[][] DIRS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    // 第二子的候选：原候选点个数
+    private static final int POOL = 16;
+
+    private final int firstK;
+    private final int secondK;
+    private final int maxMoves;
+
+    // 复用的缓冲区，生成器不可跨线程共享
+    private final int[] points = new int[EngineBoard.CELLS];
+    private final int[] scores = new int[EngineBoard.CELLS];
+    private final int[] firsts = new int[EngineBoard.CELLS];
+    private final int[] firstScores = new int[EngineBoard.CELLS];
+    private final int[] seconds = new int[EngineBoard.CELLS];
+    private final int[] secondScores = new int[EngineBoard.CELLS];
+    private final int[] zone = new int[EngineBoard.CELLS];
+    private final int[] mark = new int[EngineBoard.CELLS];
+    private int stamp;
+    private final long[] pairs;
+
+    public ConditionalMoveGenerator(int firstK, int secondK, int maxMoves) {
+        this.firstK = Math.max(1, firstK);
+        this.secondK = Math.max(1, secondK);
+        this.maxMoves = Math.max(1, maxMoves);
+        // 相关区可能有几十个格子，按最坏情况留空间
+        this.pairs = new long[Math.max(this.firstK, 64) * Math.max(this.secondK, 64)];
+    }
+
+    @Override
+    public int generate(EngineBoard board, int[] out) {
+        int me = board.sideToMove(), op = 3 - me;
+
+        int win = board.winningMove(me);
+        if (win != Moves.NONE) {
+            out[0] = win;
+            return 1;
+        }
+
+        int n = board.fours(op) > 0 ? defences(board, me, op) : quiet(board, me, op);
+        if (n == 0) {
+            if (board.fours(op) == 0) return 0;
+            int m = Threats.bestEffortDefence(board, op);
+            if (m == Moves.NONE) return 0;
+            out[0] = m;
+            return 1;
+        }
+        java.util.Arrays.sort(pairs, 0, n);
+        int count = Math.min(n, Math.min(maxMoves, out.length));
+        for (int i = 0; i < count; i++) out[i] = (int) pairs[n - 1 - i];
+        return count;
+    }
+
+    /** 有威胁时：两子都在相关区里，落下后对方不能再有威胁窗口 */
+    private int defences(EngineBoard board, int me, int op) {
+        int np = pool(board, me, op);
+        int nz = board.threatCells(op, zone);
+        for (int i = 0; i < nz; i++) {
+            firsts[i] = zone[i];
+            firstScores[i] = board.potential(zone[i], me) + board.potential(zone[i], op);
+        }
+        int nf = Threats.select(firsts, firstScores, nz, nz);
+        int n = 0;
+        for (int i = 0; i < nf; i++) {
+            int a = firsts[i];
+            board.put(a, me);
+            int ns;
+            if (board.fours(op) == 0) {
+                // 第一子已经堵住全部威胁，第二子自由选
+                board.clear(a);
+                ns = conditionalSeconds(board, me, op, a, np);
+            } else {
+                ns = board.threatCells(op, seconds);
+                int k = 0;
+                for (int j = 0; j < ns; j++) {
+                    int b = seconds[j];
+                    board.put(b, me);
+                    boolean covered = board.fours(op) == 0;
+                    board.clear(b);
+                    if (!covered) continue;
+                    seconds[k] = b;
+                    secondScores[k] = board.potential(b, me) + board.potential(b, op);
+                    k++;
+                }
+                ns = k;
+                board.clear(a);
+            }
+            for (int j = 0; j < ns; j++) n = add(n, a, seconds[j], firstScores[i] + secondScores[j]);
+        }
+        return n;
+    }
+
+    /** 没有威胁时：firstK 个第一子，每个之后条件生成 secondK 个第二子 */
+    private int quiet(EngineBoard board, int me, int op) {
+        int np = pool(board, me, op);
+        int nf = Math.min(firstK, np);
+        System.arraycopy(points, 0, firsts, 0, nf);
+        System.arraycopy(scores, 0, firstScores, 0, nf);
+        int n = 0;
+        for (int i = 0; i < nf; i++) {
+            int a = firsts[i];
+            int ns = conditionalSeconds(board, me, op, a, np);
+            for (int j = 0; j < ns; j++) n = add(n, a, seconds[j], firstScores[i] + secondScores[j]);
+        }
+        return n;
+    }
+
+    /** 落子前双方潜力之和最高的若干个近邻空点，放进 points/scores 前部；既是第一子也是第二子的基础候选 */
+    private int pool(EngineBoard board, int me, int op) {
+        int np = 0;
+        for (int cell = 0; cell < EngineBoard.CELLS; cell++) {
+            if (board.get(cell) != EngineBoard.EMPTY || !board.near(cell)) continue;
+            points[np] = cell;
+            scores[np] = board.potential(cell, me) + board.potential(cell, op);
+            np++;
+        }
+        return Threats.select(points, scores, np, Math.max(POOL, firstK));
+    }
+
+    /**
+     * 第一子 a（还没落下）之后的第二子候选：points 前 np 个原候选点，加上 a 四条线上距离 5 以内的空格，
+     * 按落下 a 后的潜力取前 secondK 个放进 seconds/secondScores。
+     */
+    private int conditionalSeconds(EngineBoard board, int me, int op, int a, int np) {
+        if (++stamp == 0) {
+            java.util.Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+        mark[a] = stamp;
+        int ns = 0;
+        for (int i = 0; i < np; i++) ns = candidate(board, me, op, a, points[i], ns);
+        int r = a / EngineBoard.SIZE, c = a % EngineBoard.SIZE;
+        for (int[] d : DIRS) {
+            for (int s = -5; s <= 5; s++) {
+                int rr = r + s * d[0], cc = c + s * d[1];
+                if (rr < 0 || rr >= EngineBoard.SIZE || cc < 0 || cc >= EngineBoard.SIZE) continue;
+                ns = candidate(board, me, op, a, rr * EngineBoard.SIZE + cc, ns);
+            }
+        }
+        // 第一子的线旁边没有其他候选时（例如第一手），退回全盘近邻点
+        if (ns == 0) {
+            for (int cell = 0; cell < EngineBoard.CELLS; cell++) {
+                if (board.near(cell)) ns = candidate(board, me, op, a, cell, ns);
+            }
+        }
+        return Threats.select(seconds, secondScores, ns, secondK);
+    }
+
+    private int candidate(EngineBoard board, int me, int op, int a, int cell, int ns) {
+        if (mark[cell] == stamp || board.get(cell) != EngineBoard.EMPTY) return ns;
+        mark[cell] = stamp;
+        seconds[ns] = cell;
+        secondScores[ns] = board.potential(cell, me) + board.potential(cell, op) + board.interaction(a, cell, me);
+        return ns + 1;
+    }
+
+    /** 加入一对着法（两子顺序无关），已有的保留较高分数；高 32 位放分数，排序后低位就是着法 */
+    private int add(int n, int a, int b, int score) {
+        int move = Moves.pack(Math.min(a, b), Math.max(a, b));
+        for (int i = 0; i < n; i++) {
+            if ((int) pairs[i] == move) {
+                if ((int) (pairs[i] >> 32) < score) pairs[i] = (long) score << 32 | move;
+                return n;
+            }
+        }
+        if (n == pairs.length) return n;
+        pairs[n] = (long) score << 32 | move;
+        return n + 1;
+    }
+}
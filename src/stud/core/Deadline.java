@@ -0,0 +1,85 @@
+package stud.core;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每步棋的时限。
+ *
+ * 硬时限由一个共享的定时线程到点把 volatile 标志置位，搜索在每个节点读一次标志（check），
+ * 置位后抛出 SearchTimeout 一路退回到迭代加深的最外层；软时限用来决定还要不要开始下一轮迭代。
+ * 搜索过程中随时用 offer 登记当前最好的着法，看门狗超时后直接取 best()。
+ */
+public class Deadline {
+
+    /** 超时后从搜索深处退出用，不带调用栈，抛出几乎没有开销 */
+    public static final class SearchTimeout extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final SearchTimeout INSTANCE = new SearchTimeout();
+
+        private SearchTimeout() {
+            super("search deadline", null, false, false);
+        }
+    }
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stud-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean stopped;
+    private volatile int best = Moves.NONE;
+    // 没调用过 start 时不限时
+    private long start = System.nanoTime();
+    private long softNanos = Long.MAX_VALUE;
+    private ScheduledFuture<?> task;
+
+    /** 开始计时：hardMillis 后强制停止，softMillis 后不再开始新的迭代 */
+    public synchronized void start(long hardMillis, long softMillis) {
+        cancel();
+        stopped = false;
+        best = Moves.NONE;
+        start = System.nanoTime();
+        softNanos = TimeUnit.MILLISECONDS.toNanos(softMillis);
+        task = TIMER.schedule(this::stop, hardMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void cancel() {
+        if (task != null) task.cancel(false);
+        task = null;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean stopped() {
+        return stopped;
+    }
+
+    /** 搜索在每个节点调用，时间到了就抛出 SearchTimeout */
+    public void check() {
+        if (stopped) throw SearchTimeout.INSTANCE;
+    }
+
+    /** 过了软时限，不值得再开始一轮更深的搜索 */
+    public boolean softExpired() {
+        return stopped || System.nanoTime() - start > softNanos;
+    }
+
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /** 登记目前为止最好的着法 */
+    public void offer(int move) {
+        if (move != Moves.NONE) best = move;
+    }
+
+    public int best() {
+        return best;
+    }
+}
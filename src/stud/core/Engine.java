@@ -0,0 +1,532 @@
+package stud.core;
+
+import core.board.Board;
+import core.board.PieceColor;
+import core.game.Game;
+import core.game.GameResult;
+import core.game.Move;
+import stud.tools.GameRecord;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 所有 stud 引擎共用的下棋流程，子类只需给出引擎名、估值权重和默认参数。
+ *
+ * 每一步：同步棋盘 → 能成六就成六 → 对方有威胁时只在防守着法里搜 → 否则先算杀 (VCF) → Alpha-Beta 搜索。
+ *
+ * 搜索在后台线程里对棋盘副本进行，主线程只按时限等待：先算好一手合法的应急着法登记到 Deadline，
+ * 搜索每完成一轮迭代就更新它；到了时限搜索自己会停，万一没停，看门狗也直接拿走当前最好的着法。
+ * 每步时限取 MoveTimeMs 和“剩余 TimeLimit ÷ 剩余步数”中较小的一个。
+ *
+ * 参数（可在 file.properties / engine.properties 中用 "引擎名.参数名" 覆盖）：
+ * SearchDepth、VctDepth（0 关闭算杀）、VctNodes、CandidateTopK、MaxMoves、TTBits、MoveTimeMs、
+ * QuiescenceDepth（0 关闭静态搜索）、QuiescenceNodes，
+ * 向前裁剪开关 Lmr、NullMove、ProbCut 和 ProbCutMargin（默认取活三分值的两倍），
+ * ConditionalMoves（改用两阶段条件着法生成，第一子 FirstStones 个、每个第一子之后 SecondStones 个第二子），
+ * StagedMoves（内部节点分阶段按需生成着法）、Killers（杀手着法提前），
+ * CheckSync（每步同步后与框架棋盘逐格比对，调试用），WarmupMs（每个 JVM 第一次开局前 JIT 预热的总时长，见 warmUp）。
+ * 三张堆外哈希表（置换表、估值缓存、算杀证明表）的大小：TTMegabytes / EvalCacheMegabytes / ProofMegabytes，
+ * 不给时用 TTBits / EvalCacheBits / ProofBits（默认都是 16，即 2^16 槽 = 1 MB；后两者为 0 时不用这张表）。
+ *
+ * 给了 Knowledge（文件路径）时启用跨对局的持久知识（见 KnowledgeFile，新建时大小为 KnowledgeMegabytes）：
+ * 每盘结束时把剩余深度不小于 KnowledgeDepth 的置换表条目、证明过的算杀和自己前 BookMoves 手的开局统计写进文件；
+ * 搜索时置换表和证明表查不到再查文件；开局前 BookMoves 手里，候选着法至少走过 BookGames 盘、
+ * 平均得分不低于一半的，直接走得分最高的那一手。
+ *
+ * 给了 Shapes（ShapeBuilder 生成的棋型库文件）时，算杀之前先在自己最近两手落子附近查必胜棋型（见 ShapeLibrary），
+ * 库里给出的第一手只用 ThreatSearcher.wins 验证这一手（深度 ShapeDepth，默认比 VctDepth 浅一层，
+ * 验证不成立的候选也要花时间），成立就直接走，不再做完整的算杀。
+ */
+public class Engine extends core.player.AI implements Instrumented {
+
+    private static final int MOVE_TIME_MS = 3000;
+    private static final int MIN_MOVE_MS = 20;
+    // 时限到了以后等搜索线程退出的时间
+    private static final int GRACE_MS = 50;
+    private static final int WARMUP_POSITIONS = 8;
+
+    // JIT 编译结果整个 JVM 共用，预热一次就够
+    private static final AtomicBoolean WARMED = new AtomicBoolean();
+
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "stud-search");
+        t.setDaemon(true);
+        return t;
+    });
+
+    protected final EngineParams params;
+    protected final EngineStats stats = new EngineStats();
+
+    protected final int searchDepth;
+    protected final int vctDepth;
+    protected final int moveTimeMs;
+
+    protected final FastBoard fast = new FastBoard();
+    protected final BoardSync sync;
+    protected final KnowledgeFile knowledge;
+    private final int knowledgeDepth;
+    private final int bookMoves;
+    private final int bookGames;
+    private int gameMoves;                                   // 本步之前双方一共走了几手
+    protected final ShapeLibrary shapes;
+    private final int[] recent = new int[4];                 // 自己最近两手的落子
+    private final int[] shapeMoves = new int[8];             // 棋型库提名的第一手
+    private final int shapeDepth;
+    private int nRecent;
+    protected final Evaluator evaluator;
+    protected final MoveGenerator generator;
+    protected final TranspositionTable tt;
+    protected final AlphaBetaSearcher searcher;
+    protected final ThreatSearcher threatSearcher;
+
+    // --- 时间控制 ---
+    protected final Deadline deadline = new Deadline();
+    private final FastBoard searchBoard = new FastBoard();   // 只给搜索线程用
+    private Future<?> running;                               // 搜索线程上正在进行的选着或分析
+    private volatile boolean stopRequested;                  // 收到 stop，可能早于计时开始；prepare 清掉
+    private final long clockMillis = EngineParams.global("TimeLimit", 900) * 1000L;
+    private final int maxStep = EngineParams.global("MaxStep", 80);
+    private long usedNanos;                                  // 本局已用时间
+
+    protected Engine(EngineParams params, Evaluator evaluator,
+                     int searchDepth, int vctDepth, int candidateTopK, int maxMoves) {
+        this.params = params;
+        int cacheBits = tableBits("EvalCacheMegabytes", "EvalCacheBits", 16);
+        this.evaluator = cacheBits > 0 ? new EvalCache(evaluator, cacheBits) : evaluator;
+        this.searchDepth = params.getInt("SearchDepth", searchDepth);
+        this.vctDepth = params.getInt("VctDepth", vctDepth);
+        this.moveTimeMs = params.getInt("MoveTimeMs", MOVE_TIME_MS);
+        int topK = params.getInt("CandidateTopK", candidateTopK);
+        int max = params.getInt("MaxMoves", maxMoves);
+        this.generator = params.getBoolean("ConditionalMoves", false)
+                ? new ConditionalMoveGenerator(params.getInt("FirstStones", 8), params.getInt("SecondStones", 5), max)
+                : new PairMoveGenerator(topK, max);
+        this.tt = new TranspositionTable(tableBits("TTMegabytes", "TTBits", 16));
+        this.searcher = new AlphaBetaSearcher(this.evaluator, generator, tt, stats, deadline, max)
+                .quiescence(params.getInt("QuiescenceDepth", 4), params.getInt("QuiescenceNodes", 20000))
+                .pruning(params.getBoolean("Lmr", true), params.getBoolean("NullMove", false),
+                        params.getBoolean("ProbCut", false), params.getInt("ProbCutMargin", defaultMargin(evaluator)))
+                .staged(params.getBoolean("StagedMoves", true), params.getBoolean("Killers", false));
+        this.sync = new BoardSync(fast, params.getBoolean("CheckSync", false));
+        this.knowledge = openKnowledge(params.getString("Knowledge", ""), params.getInt("KnowledgeMegabytes", 64));
+        this.knowledgeDepth = params.getInt("KnowledgeDepth", 3);
+        this.bookMoves = params.getInt("BookMoves", 3);
+        this.bookGames = params.getInt("BookGames", 4);
+        this.shapes = loadShapes(params.getString("Shapes", ""));
+        this.shapeDepth = params.getInt("ShapeDepth", Math.max(1, this.vctDepth - 1));
+        int proofBits = tableBits("ProofMegabytes", "ProofBits", 16);
+        this.threatSearcher = new ThreatSearcher(stats, deadline, params.getInt("VctNodes", 20000),
+                proofBits > 0 ? new ProofTable(proofBits) : null);
+        if (knowledge != null) {
+            searcher.knowledge(knowledge.deep(), knowledgeDepth);
+            threatSearcher.knowledge(knowledge.proofs());
+        }
+    }
+
+    private static KnowledgeFile openKnowledge(String path, int megabytes) {
+        if (path.isEmpty()) return null;
+        try {
+            return KnowledgeFile.open(Paths.get(path), megabytes);
+        } catch (IOException e) {
+            System.err.println("knowledge file disabled: " + e);
+            return null;
+        }
+    }
+
+    private static ShapeLibrary loadShapes(String path) {
+        if (path.isEmpty()) return null;
+        try {
+            return ShapeLibrary.load(Paths.get(path));
+        } catch (IOException e) {
+            System.err.println("shape library disabled: " + e);
+            return null;
+        }
+    }
+
+    /** 表的大小：给了 xxxMegabytes 就按兆字节换算，否则用 xxxBits（2 的幂个槽，0 表示不用这张表） */
+    private int tableBits(String megabytesKey, String bitsKey, int defaultBits) {
+        int mb = params.getInt(megabytesKey, 0);
+        return mb > 0 ? PackedTable.bitsForMegabytes(mb) : params.getInt(bitsKey, defaultBits);
+    }
+
+    private static int defaultMargin(Evaluator evaluator) {
+        if (evaluator instanceof PatternEvaluator) return 2 * ((PatternEvaluator) evaluator).score(FastBoard.P_LIVE_3);
+        return 100_000;
+    }
+
+    @Override
+    public String name() {
+        return params.playerName();
+    }
+
+    @Override
+    public EngineStats stats() {
+        return stats;
+    }
+
+    public EngineParams params() {
+        return params;
+    }
+
+    public AlphaBetaSearcher searcher() {
+        return searcher;
+    }
+
+    public MoveGenerator generator() {
+        return generator;
+    }
+
+    public Evaluator evaluator() {
+        return evaluator;
+    }
+
+    @Override
+    public void playGame(Game game) {
+        super.playGame(game);
+        warmUp();
+        newGame();
+    }
+
+    /**
+     * JIT 预热：本 JVM 里第一次开局前（框架在开始计时之前调用 playGame），在几个固定的合成局面上
+     * 各限时 WarmupMs / 8 跑一遍完整的选着流程，让估值、着法生成和两种搜索的热点先被 C2 编译。
+     * 预热的节点不计入统计，用过的表由随后的 newGame 清空。WarmupMs 为 0 时不预热。
+     */
+    public void warmUp() {
+        int total = params.getInt("WarmupMs", 400);
+        if (total <= 0 || busy() || !WARMED.compareAndSet(false, true)) return;
+        long nodes = stats.nodes();
+        long slice = Math.max(MIN_MOVE_MS, total / WARMUP_POSITIONS);
+        Random rnd = new Random(WARMUP_POSITIONS);
+        int[] list = new int[256];
+        nRecent = 0;
+        for (int p = 0; p < WARMUP_POSITIONS; p++) {
+            // 从开局按生成器的前几手随机走 2~9 手，局面一个比一个深
+            new BoardSync(searchBoard, false).rebuild(new Board());
+            for (int ply = 0; ply < 2 + p && searchBoard.winner() == EngineBoard.EMPTY; ply++) {
+                int n = generator.generate(searchBoard, list);
+                if (n == 0) break;
+                searchBoard.play(list[rnd.nextInt(Math.min(n, 4))]);
+            }
+            if (searchBoard.winner() != EngineBoard.EMPTY) continue;
+            gameMoves = searchBoard.ply();
+            deadline.start(slice, slice / 2);
+            try {
+                choose(searchBoard);
+            } finally {
+                deadline.cancel();
+            }
+        }
+        stats.uncount(stats.nodes() - nodes);
+    }
+
+    /** 开始新的一盘：清空棋盘、用时和上一盘的各张表（不经过框架的 Game 时由 EngineServer 直接调用） */
+    public void newGame() {
+        this.board = new Board();
+        usedNanos = 0;
+        tt.clear();
+        if (evaluator instanceof EvalCache) ((EvalCache) evaluator).clear();
+        if (threatSearcher.proofs() != null) threatSearcher.proofs().clear();
+    }
+
+    /** 一盘结束：把这盘学到的东西写进知识文件 */
+    @Override
+    public void addGameResult(GameResult result) {
+        super.addGameResult(result);
+        if (knowledge != null && board != null && getColor() != null) learn(GameRecord.of(result).getResult());
+    }
+
+    /**
+     * outcome 是 GameRecord 的结果（先手胜、后手胜、和），按本方颜色换成得分；超时、违例判负也在里面。
+     * 不用 GameResult.score(name())：它按名字比，同名的两个引擎（自对弈、g09.AI 对 g09.SmartAI）会都算赢。
+     */
+    private void learn(int outcome) {
+        int me = BoardSync.color(getColor());
+        List<Move> moves = board.getMoveList();
+        boolean first = me == BoardSync.sideAfter(0);
+        int points = outcome == GameRecord.DRAW ? OpeningBook.DRAW
+                : (outcome == GameRecord.FIRST_WIN) == first ? OpeningBook.WIN : OpeningBook.LOSS;
+
+        // 同一进程里的引擎共用一个 KnowledgeFile（Sprt、TacticalSuite 会并行下棋），开局统计是读-改-写，
+        // 整盘的写入一起串行，免得丢掉计数或把两盘的计数搅在一起
+        synchronized (knowledge) {
+            TranspositionTable deep = knowledge.deep();
+            tt.forEach((key, e) -> {
+                if (TranspositionTable.depth(e) >= knowledgeDepth) {
+                    deep.store(key, TranspositionTable.depth(e), TranspositionTable.value(e),
+                            TranspositionTable.flag(e), TranspositionTable.move(e));
+                }
+            });
+            ProofTable proofs = threatSearcher.proofs();
+            if (proofs != null) {
+                ProofTable saved = knowledge.proofs();
+                proofs.forEach((key, e) -> {
+                    if (ProofTable.won(e)) saved.storeWin(key, ProofTable.depth(e), ProofTable.move(e));
+                });
+            }
+
+            // 重放整盘，记下自己前 bookMoves 手走完后的局面
+            FastBoard replay = new FastBoard();
+            new BoardSync(replay, false).rebuild(new Board());
+            int mine = 0;
+            for (int i = 0; i < moves.size() && mine < bookMoves; i++) {
+                replay.play(Moves.of(moves.get(i)));
+                if (BoardSync.sideAfter(i) == me) {
+                    knowledge.book().record(replay.hash(), points);
+                    mine++;
+                }
+            }
+            knowledge.force();
+        }
+    }
+
+    @Override
+    public Move findNextMove(Move opponentMove) {
+        long start = System.nanoTime();
+        Move move = think(opponentMove);
+        long elapsed = System.nanoTime() - start;
+        stats.addMove(elapsed);
+        usedNanos += elapsed;
+        return move;
+    }
+
+    private Move think(Move opponentMove) {
+        if (this.board == null) this.board = new Board();
+        if (opponentMove != null) board.makeMove(opponentMove);
+        Move m = Moves.toMove(decide(budgetMillis()));
+        board.makeMove(m);
+        return m;
+    }
+
+    /**
+     * 清掉上一次留下的 stop。要在调用方的线程上、启动调 go/findBestMoves 的思考线程之前调用：
+     * 放在思考线程里清，会把紧跟着发来的 stop 一起清掉。
+     */
+    public void prepare() {
+        stopRequested = false;
+    }
+
+    /**
+     * 引擎服务用：在从开局走完 moves 后的局面上最多想 budgetMillis 毫秒（不大于 0 时用 MoveTimeMs），返回着法但不落子。
+     * moves 是上一次局面的延续时只补上新增的着法，置换表等沿用；否则换一块棋盘重新摆。调用前先 prepare。
+     */
+    public Move go(List<Move> moves, long budgetMillis) {
+        setPosition(moves);
+        long start = System.nanoTime();
+        int move = decide(budgetMillis > 0 ? Math.max(MIN_MOVE_MS, budgetMillis) : moveTimeMs);
+        stats.addMove(System.nanoTime() - start);
+        return Moves.toMove(move);
+    }
+
+    /**
+     * 分析用（开局库、调参、查引擎为什么这么走）：在从开局走完 moves 后的局面上做一次多主变搜索，
+     * 最多想 budgetMillis 毫秒（不大于 0 时用 MoveTimeMs），返回最好的 count 手，按分数（轮到的一方视角）从高到低，
+     * 各带主变。只跑 Alpha-Beta，不查开局库、不算杀；不落子。局面已经分出胜负或者一手都没算完时返回空表。调用前先 prepare。
+     */
+    public List<AlphaBetaSearcher.RootLine> findBestMoves(List<Move> moves, int count, long budgetMillis) {
+        setPosition(moves);
+        sync();
+        if (fast.winner() != EngineBoard.EMPTY || busy()) return Collections.emptyList();
+        long budget = budgetMillis > 0 ? Math.max(MIN_MOVE_MS, budgetMillis) : moveTimeMs;
+        deadline.start(budget, budget / 2);
+        if (stopRequested) deadline.stop();
+        searchBoard.copyFrom(fast);
+        Future<List<AlphaBetaSearcher.RootLine>> lines =
+                WORKERS.submit(() -> searcher.searchLines(searchBoard, searchDepth, count));
+        running = lines;
+        try {
+            return lines.get(budget + GRACE_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            deadline.stop();
+            stats.timeout();
+        } catch (ExecutionException e) {
+            System.err.println("analysis failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deadline.cancel();
+        }
+        return Collections.emptyList();
+    }
+
+    /** moves 是当前框架棋盘的延续时只补上新增的着法，否则换一块棋盘重新摆 */
+    private void setPosition(List<Move> moves) {
+        List<Move> played = board == null ? null : board.getMoveList();
+        if (played == null || played.size() > moves.size() || !played.equals(moves.subList(0, played.size()))) {
+            board = new Board();
+            played = board.getMoveList();
+        }
+        for (int i = played.size(); i < moves.size(); i++) board.makeMove(moves.get(i));
+    }
+
+    /** 让正在进行的搜索马上停下，go 随即返回目前最好的着法 */
+    public void stop() {
+        stopRequested = true;
+        deadline.stop();
+    }
+
+    /** 在当前框架棋盘上选一手，最多想 budget 毫秒 */
+    private int decide(long budget) {
+        sync();
+        int move = quickMove();
+        // 能直接成六就不必搜索
+        if (fast.winningMove(fast.sideToMove()) == Moves.NONE) {
+            if (busy()) {
+                // 上一步的搜索线程还没退出，它还在读 searchBoard、gameMoves 和 recent，一样都不能动
+                stats.timeout();
+            } else {
+                List<Move> moves = board.getMoveList();
+                gameMoves = moves.size();
+                nRecent = 0;
+                for (int i = gameMoves - 2; i >= 0 && i >= gameMoves - 4; i -= 2) {
+                    recent[nRecent++] = moves.get(i).index1();
+                    recent[nRecent++] = moves.get(i).index2();
+                }
+                move = searchInBackground(move, budget);
+            }
+        }
+        if (!legal(move)) move = fallback();
+        return move;
+    }
+
+    /** 上一次提交的搜索还没退出（超时后没等它），这时搜索线程用的棋盘和各项状态都不能碰 */
+    private boolean busy() {
+        return running != null && !running.isDone();
+    }
+
+    /** 在后台线程里搜索，最多等到时限；超时就用搜索登记的最好着法（至少是 quick）。调用前要确认 !busy() */
+    private int searchInBackground(int quick, long budget) {
+        deadline.start(budget, budget / 2);
+        if (stopRequested) deadline.stop();
+        deadline.offer(quick);
+        searchBoard.copyFrom(fast);
+        Future<Integer> move = WORKERS.submit(() -> choose(searchBoard));
+        running = move;
+        try {
+            return move.get(budget + GRACE_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            deadline.stop();
+            stats.timeout();
+        } catch (ExecutionException e) {
+            System.err.println("search failed, playing the best move so far: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deadline.cancel();
+        }
+        return deadline.best();
+    }
+
+    /** 本步时限：不超过 MoveTimeMs，也不超过剩余时间平摊到剩余步数（留 5% 余量） */
+    private long budgetMillis() {
+        int movesLeft = Math.max(1, (maxStep - board.getMoveList().size() + 1) / 2);
+        long remaining = clockMillis - clockMillis / 20 - TimeUnit.NANOSECONDS.toMillis(usedNanos);
+        return Math.max(MIN_MOVE_MS, Math.min(moveTimeMs, remaining / movesLeft));
+    }
+
+    /** 不需要搜索的应急着法：能成六就成六，有威胁就堵，否则随便一手合法棋 */
+    private int quickMove() {
+        int me = fast.sideToMove(), op = 3 - me;
+        int win = fast.winningMove(me);
+        if (win != Moves.NONE) return win;
+        if (fast.fours(op) > 0) {
+            int[] out = new int[1];
+            if (Threats.defences(fast, op, new int[0], 0, out) > 0) return out[0];
+            int m = Threats.bestEffortDefence(fast, op);
+            if (m != Moves.NONE) return m;
+        }
+        return fallback();
+    }
+
+    /** 按流程选一手棋，在搜索线程里运行 */
+    protected int choose(EngineBoard b) {
+        int me = b.sideToMove(), op = 3 - me;
+
+        // 1. 一手成六
+        int win = b.winningMove(me);
+        if (win != Moves.NONE) return win;
+
+        // 开局库
+        if (knowledge != null && b.fours(op) == 0 && gameMoves / 2 < bookMoves) {
+            int m = bookMove(b);
+            if (m != Moves.NONE) return m;
+        }
+
+        try {
+            // 2. 对方没有威胁时先算杀；有威胁时生成器只会给出防守着法
+            if (b.fours(op) == 0 && vctDepth > 0) {
+                // 棋型库提名的着法先单独验证
+                if (shapes != null) {
+                    int n = shapes.candidates(b, recent, nRecent, shapeMoves);
+                    for (int i = 0; i < n; i++) {
+                        if (threatSearcher.wins(b, shapeMoves[i], shapeDepth)) return shapeMoves[i];
+                    }
+                }
+                int vct = threatSearcher.search(b, vctDepth);
+                if (vct != Moves.NONE) return vct;
+            }
+
+            // 3. Alpha-Beta（迭代加深，自己处理超时）
+            int m = searcher.search(b, searchDepth);
+            if (m != Moves.NONE) return m;
+        } catch (Deadline.SearchTimeout e) {
+            // 算杀没算完就到时了
+        }
+        return deadline.best();
+    }
+
+    /** 候选着法里开局统计最好的一手（局数够、平均得分不低于一半），没有返回 NONE */
+    private int bookMove(EngineBoard b) {
+        int[] list = new int[256];
+        int n = generator.generate(b, list);
+        int best = Moves.NONE;
+        double bestScore = 0.5;
+        for (int i = 0; i < n; i++) {
+            b.play(list[i]);
+            long e = knowledge.book().probe(b.hash());
+            b.undo();
+            if (e != OpeningBook.MISS && OpeningBook.games(e) >= bookGames && OpeningBook.score(e) >= bestScore) {
+                best = list[i];
+                bestScore = OpeningBook.score(e);
+            }
+        }
+        return best;
+    }
+
+    /** 不限时、不算杀，只在给定局面上跑一次 Alpha-Beta（清空置换表），给基准工具用 */
+    public int analyse(EngineBoard b, int depth) {
+        tt.clear();
+        return searcher.search(b, depth);
+    }
+
+    /** 把框架棋盘上新增的着法同步到引擎棋盘（换了一盘棋时整盘重建） */
+    protected void sync() {
+        sync.update(board);
+    }
+
+    private boolean legal(int move) {
+        if (move == Moves.NONE) return false;
+        int a = Moves.first(move), b = Moves.second(move);
+        return a != b && a < EngineBoard.CELLS && b < EngineBoard.CELLS
+                && board.get(a) == PieceColor.EMPTY && board.get(b) == PieceColor.EMPTY;
+    }
+
+    /** 兜底：两个不同的空格，优先靠近已有棋子的 */
+    private int fallback() {
+        int a = fast.anyEmptyExcept(-1);
+        int b = fast.anyEmptyExcept(a);
+        return Moves.pack(a, b);
+    }
+}
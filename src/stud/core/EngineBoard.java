@@ -0,0 +1,77 @@
+package stud.core;
+
+/**
+ * 引擎内部使用的棋盘。与框架的 core.board.Board 不同，它为搜索服务：
+ * 落子/悔棋是增量的，并随时维护棋型计数、威胁窗口和 Zobrist 键。
+ *
+ * 颜色用 int 表示（EMPTY/BLACK/WHITE），对方颜色为 3 - color。
+ */
+public interface EngineBoard {
+
+    int EMPTY = 0;
+    int BLACK = 1;
+    int WHITE = 2;
+
+    int SIZE = 19;
+    int CELLS = SIZE * SIZE;
+
+    /** 格子上的颜色 */
+    int get(int cell);
+
+    /** 轮到哪一方走 */
+    int sideToMove();
+
+    /** 已经走了多少手（每手两子） */
+    int ply();
+
+    /** 轮到的一方落一手（Moves.pack 打包的两子），之后换对方走 */
+    void play(int move);
+
+    /** 空着：不落子，换对方走（用于空着裁剪），同样用 undo 撤销 */
+    void pass();
+
+    /** 撤销最近一手 */
+    void undo();
+
+    /** 单独放/拿一个子，不换走棋方，用于试探性检查 */
+    void put(int cell, int color);
+
+    void clear(int cell);
+
+    /** 已经连成六子的一方，没有返回 EMPTY */
+    int winner();
+
+    /** color 的威胁窗口数：六格窗口内 color 至少四子且没有对方棋子，下一手就能成六 */
+    int fours(int color);
+
+    /** 把 color 所有威胁窗口中的空格（去重）写入 out，返回个数 */
+    int threatCells(int color, int[] out);
+
+    /** 把 color 至少 minOwn 子、没有对方棋子的窗口中的空格（去重）写入 out，返回个数 */
+    int windowCells(int color, int minOwn, int[] out);
+
+    /** color 能一手成六的着法（补齐某个威胁窗口），没有返回 Moves.NONE */
+    int winningMove(int color);
+
+    /** 除 except 以外的任意空格，优先选周围有子的；棋盘满了返回 -1 */
+    int anyEmptyExcept(int except);
+
+    /** color 第 k 种棋型（下标见 FastBoard.P_*）的个数 */
+    int pattern(int color, int k);
+
+    /** 在 cell 落子对 color 的潜力：经过 cell 且没有对方棋子的窗口按己方子数加权求和 */
+    int potential(int cell, int color);
+
+    /**
+     * a、b 两格都由 color 落子时，两子的组合分相对 potential 独立相加的修正：
+     * 只有两格同在某个六格窗口里时才非零。加上它之后，
+     * potential(a) + potential(b) + interaction(a, b) 就等于先落 a 再算 b 的潜力（双方潜力之和）。
+     */
+    int interaction(int a, int b, int color);
+
+    /** cell 周围两格内是否有棋子 */
+    boolean near(int cell);
+
+    /** 当前局面的 Zobrist 键 */
+    long hash();
+}
@@ -0,0 +1,134 @@
+package stud.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * 引擎参数：搜索深度、候选点数等，不用重新编译就能调整。
+ *
+ * 全局值从 file.properties（与 TimeLimit/MaxStep 放在一起）读取，
+ * 再由 engine.properties（或 -Dstud.params=路径）覆盖，键名为 "引擎名.参数名"，例如 G09.SearchDepth = 4。
+ * 每个棋手实例持有自己的 EngineParams，可以再单独 set 覆盖，
+ * 这样一次 AITester 运行里可以放多个不同参数的同一引擎做对比。
+ */
+public class EngineParams {
+
+    public static final String CONFIG_FILE = "file.properties";
+    public static final String SIDE_FILE = "engine.properties";
+
+    private static final Properties GLOBAL = load();
+
+    private final String engine;
+    private final Properties local = new Properties();
+    private String label = "";
+
+    private EngineParams(String engine) {
+        this.engine = engine;
+    }
+
+    /** 取某个引擎的参数（全局配置之上可以再做实例级覆盖） */
+    public static EngineParams forEngine(String engine) {
+        return new EngineParams(engine);
+    }
+
+    private static Properties load() {
+        Properties p = new Properties();
+        read(p, Paths.get(CONFIG_FILE));
+        read(p, Paths.get(System.getProperty("stud.params", SIDE_FILE)));
+        return p;
+    }
+
+    private static void read(Properties p, Path path) {
+        if (!Files.isRegularFile(path)) return;
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+            p.load(in);
+        } catch (IOException e) {
+            System.err.println("cannot read engine parameters from " + path + ": " + e);
+        }
+    }
+
+    /** 不带引擎前缀的全局配置项，例如 TimeLimit、MaxStep */
+    public static int global(String key, int def) {
+        String v = GLOBAL.getProperty(key);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    /** 实例级覆盖，返回自身便于链式调用 */
+    public EngineParams set(String key, Object value) {
+        local.setProperty(key, String.valueOf(value));
+        return this;
+    }
+
+    /** 给这组参数起个名字，会拼在棋手名字后面，用来区分同一引擎的不同配置 */
+    public EngineParams label(String label) {
+        this.label = label == null ? "" : label;
+        return this;
+    }
+
+    public EngineParams copy() {
+        EngineParams p = new EngineParams(engine);
+        p.local.putAll(local);
+        p.label = label;
+        return p;
+    }
+
+    public String engine() {
+        return engine;
+    }
+
+    /** 棋手显示名：引擎名，有标签时为 "引擎名-标签" */
+    public String playerName() {
+        return label.isEmpty() ? engine : engine + "-" + label;
+    }
+
+    private String lookup(String key) {
+        String v = local.getProperty(key);
+        if (v == null) v = GLOBAL.getProperty(engine + "." + key);
+        return v == null ? null : v.trim();
+    }
+
+    public String getString(String key, String def) {
+        String v = lookup(key);
+        return v == null ? def : v;
+    }
+
+    public int getInt(String key, int def) {
+        String v = lookup(key);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public double getDouble(String key, double def) {
+        String v = lookup(key);
+        if (v == null) return def;
+        try {
+            return Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean def) {
+        String v = lookup(key);
+        return v == null ? def : Boolean.parseBoolean(v);
+    }
+
+    @Override
+    public String toString() {
+        return playerName() + local;
+    }
+}
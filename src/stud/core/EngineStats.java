@@ -0,0 +1,95 @@
+package stud.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个棋手实例的思考统计：走了多少步、总共用了多少时间、搜索了多少节点，
+ * 以及每步用时的分布（p50/p99/max）和看门狗超时次数。
+ *
+ * 节点数和超时次数由搜索线程和调用线程一起累加，用 LongAdder；每步用时只在调用线程记录，
+ * 但可能被别的线程读（引擎服务、对局场），和用时表一起在锁里更新。
+ */
+public class EngineStats {
+
+    private long moves;
+    private long nanos;
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private long[] latencies = new long[64];
+
+    /** 搜索到一个节点时调用 */
+    public void node() {
+        nodes.increment();
+    }
+
+    /** 不算作思考的搜索（如 JIT 预热）结束后，把它数过的节点去掉 */
+    void uncount(long n) {
+        nodes.add(-n);
+    }
+
+    public synchronized void addMove(long elapsedNanos) {
+        if (moves == latencies.length) latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        latencies[(int) moves] = elapsedNanos;
+        moves++;
+        nanos += elapsedNanos;
+    }
+
+    /** 看门狗到点强行取走了当前最好的着法 */
+    public void timeout() {
+        timeouts.increment();
+    }
+
+    public synchronized long moves() {
+        return moves;
+    }
+
+    public synchronized long nanos() {
+        return nanos;
+    }
+
+    public long nodes() {
+        return nodes.sum();
+    }
+
+    public long timeouts() {
+        return timeouts.sum();
+    }
+
+    /** 每秒节点数 */
+    public synchronized double nps() {
+        return nanos == 0 ? 0 : nodes() * 1e9 / nanos;
+    }
+
+    /** 平均每步用时（毫秒） */
+    public synchronized double avgMillis() {
+        return moves == 0 ? 0 : nanos / 1e6 / moves;
+    }
+
+    /** 每步用时的 q 分位数（纳秒），q 取 0~1 */
+    public synchronized long percentile(double q) {
+        if (moves == 0) return 0;
+        long[] sorted = Arrays.copyOf(latencies, (int) moves);
+        Arrays.sort(sorted);
+        int i = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+
+    public long maxNanos() {
+        return percentile(1);
+    }
+
+    public synchronized void reset() {
+        moves = 0;
+        nanos = 0;
+        nodes.reset();
+        timeouts.reset();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("moves=%d, avg=%.2fms, p50=%.1fms, p99=%.1fms, max=%.1fms, timeouts=%d, nodes=%d, nps=%.0f",
+                moves, avgMillis(), percentile(0.5) / 1e6, percentile(0.99) / 1e6, maxNanos() / 1e6,
+                timeouts(), nodes(), nps());
+    }
+}
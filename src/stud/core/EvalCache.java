@@ -0,0 +1,59 @@
+package stud.core;
+
+/**
+ * 静态估值缓存：套在任何 Evaluator 外面，同一局面、同一视角的估值只算一次。
+ *
+ * 直接映射、放在堆外（见 PackedTable），冲突时直接覆盖（有损）；键和分数按槽异或校验，不用加锁。
+ * 同一局面在迭代加深的各轮之间、静态搜索和防守验证里反复出现，命中后一次内存读取就够了。
+ */
+public class EvalCache extends PackedTable implements Evaluator {
+
+    // 估值与视角有关（防守系数不对称），把视角混进键里
+    private static final long BLACK_KEY = 0x9E3779B97F4A7C15L;
+    private static final long USED = 1L << 63;
+
+    private final Evaluator inner;
+    private long probes;
+    private long hits;
+
+    /** 2^bits 项，每项 16 字节 */
+    public EvalCache(Evaluator inner, int bits) {
+        super(bits);
+        this.inner = inner;
+    }
+
+    @Override
+    public int evaluate(EngineBoard board, int color) {
+        long key = color == EngineBoard.BLACK ? board.hash() ^ BLACK_KEY : board.hash();
+        long e = read(key);
+        probes++;
+        if (e != 0) {
+            hits++;
+            return (int) e;
+        }
+        int v = inner.evaluate(board, color);
+        write(key, USED | (v & 0xFFFFFFFFL));
+        return v;
+    }
+
+    public Evaluator inner() {
+        return inner;
+    }
+
+    public long probes() {
+        return probes;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public double hitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("evalcache=%d/%d hit (%.1f%%)", hits, probes, 100 * hitRate());
+    }
+}
@@ -0,0 +1,9 @@
+package stud.core;
+
+/**
+ * 静态估值：从 color 的角度给局面打分，越大越好。
+ */
+public interface Evaluator {
+
+    int evaluate(EngineBoard board, int color);
+}
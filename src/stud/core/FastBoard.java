@@ -0,0 +1,438 @@
+package stud.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * EngineBoard 的实现：落子/拿子时只更新经过该格的窗口和四条线，不做全盘扫描。
+ *
+ * 维护的增量信息：
+ * <ul>
+ *     <li>每个六格窗口里黑白各有几子，由此得到威胁窗口数 fours 和是否已经成六；</li>
+ *     <li>每条线上的连子棋型（活五、死五、活四……，与 PatternEvaluator.KEYS 一一对应），汇总成双方各棋型的个数，估值只需做一次线性组合；</li>
+ *     <li>每格周围两格内的棋子数，用于生成候选点；</li>
+ *     <li>Zobrist 键。</li>
+ * </ul>
+ */
+public class FastBoard implements EngineBoard {
+
+    // --- 棋型编号，即 PatternEvaluator.KEYS 的下标，WeightTuner 拟合出的权重可以直接用 ---
+    public static final int P_WIN = 0, P_LIVE_5 = 1, P_DEAD_5 = 2, P_LIVE_4 = 3,
+            P_DEAD_4 = 4, P_LIVE_3 = 5, P_DEAD_3 = 6, P_LIVE_2 = 7;
+    public static final int PATTERNS = 8;
+
+    static final int WINDOW = 6;
+
+    // 窗口内己方子数对应的潜力（对方有子的窗口不计），用于候选点排序
+    private static final int[] POTENTIAL = {1, 6, 36, 216, 5000, 100000, 0};
+
+    // --- 静态表 ---
+    static final int WINDOWS;
+    static final int[] WIN_CELLS;          // 第 w 个窗口的 6 个格子：WIN_CELLS[w*6 .. w*6+5]
+    static final int[] CELL_WIN_START;     // 经过 cell 的窗口：CELL_WIN[CELL_WIN_START[cell] .. CELL_WIN_START[cell+1])
+    static final int[] CELL_WIN;
+    static final int LINES;
+    static final int[][] LINE_CELLS;       // 每条线上的格子，按方向排好
+    static final int[] CELL_LINE;          // CELL_LINE[cell*4 + d]：cell 在方向 d 上所在的线
+    static final int[] CELL_POS;           // CELL_POS[cell*4 + d]：cell 在这条线上的下标
+    static final int[] LINE_WIN_START;     // 线 l 上从下标 s 开始的窗口编号为 LINE_WIN_START[l] + s
+    static final int[][] NEIGHBORS;        // 周围两格内的格子（不含自己）
+    private static final long[] ZOBRIST = new long[3 * CELLS];
+    private static final long SIDE_KEY;                      // 空着后轮到的一方与子数不符，键里要区分
+
+    private static final int[][] DIRS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    static {
+        // 线：每个方向上，从“前一格出界”的格子出发走到头
+        int[][] lines = new int[4 * 2 * SIZE][];
+        int[] cellLine = new int[CELLS * 4];
+        int[] cellPos = new int[CELLS * 4];
+        int nl = 0;
+        for (int d = 0; d < 4; d++) {
+            int dc = DIRS[d][0], dr = DIRS[d][1];
+            for (int cell = 0; cell < CELLS; cell++) {
+                int c = cell % SIZE, r = cell / SIZE;
+                if (valid(c - dc, r - dr)) continue;
+                int len = 0;
+                while (valid(c + dc * len, r + dr * len)) len++;
+                int[] line = new int[len];
+                for (int i = 0; i < len; i++) {
+                    line[i] = (r + dr * i) * SIZE + c + dc * i;
+                    cellLine[line[i] * 4 + d] = nl;
+                    cellPos[line[i] * 4 + d] = i;
+                }
+                lines[nl++] = line;
+            }
+        }
+        LINES = nl;
+        LINE_CELLS = java.util.Arrays.copyOf(lines, nl);
+        CELL_LINE = cellLine;
+        CELL_POS = cellPos;
+
+        // 窗口：每条线上连续 6 格
+        int nw = 0;
+        for (int l = 0; l < nl; l++) nw += Math.max(0, LINE_CELLS[l].length - WINDOW + 1);
+        WINDOWS = nw;
+        WIN_CELLS = new int[nw * WINDOW];
+        LINE_WIN_START = new int[nl];
+        int[] perCell = new int[CELLS];
+        int w = 0;
+        for (int l = 0; l < nl; l++) {
+            int[] line = LINE_CELLS[l];
+            LINE_WIN_START[l] = w;
+            for (int s = 0; s + WINDOW <= line.length; s++, w++) {
+                for (int i = 0; i < WINDOW; i++) {
+                    WIN_CELLS[w * WINDOW + i] = line[s + i];
+                    perCell[line[s + i]]++;
+                }
+            }
+        }
+        CELL_WIN_START = new int[CELLS + 1];
+        for (int i = 0; i < CELLS; i++) CELL_WIN_START[i + 1] = CELL_WIN_START[i] + perCell[i];
+        CELL_WIN = new int[CELL_WIN_START[CELLS]];
+        int[] fill = new int[CELLS];
+        for (w = 0; w < nw; w++) {
+            for (int i = 0; i < WINDOW; i++) {
+                int cell = WIN_CELLS[w * WINDOW + i];
+                CELL_WIN[CELL_WIN_START[cell] + fill[cell]++] = w;
+            }
+        }
+
+        NEIGHBORS = new int[CELLS][];
+        for (int cell = 0; cell < CELLS; cell++) {
+            int c = cell % SIZE, r = cell / SIZE, n = 0;
+            int[] nb = new int[24];
+            for (int dr = -2; dr <= 2; dr++) {
+                for (int dc = -2; dc <= 2; dc++) {
+                    if ((dr != 0 || dc != 0) && valid(c + dc, r + dr)) nb[n++] = (r + dr) * SIZE + c + dc;
+                }
+            }
+            NEIGHBORS[cell] = java.util.Arrays.copyOf(nb, n);
+        }
+
+        // 固定种子，保证不同进程里同一局面的键相同
+        SplittableRandom rnd = new SplittableRandom(0x6C6F6E6739L);
+        for (int i = 0; i < ZOBRIST.length; i++) ZOBRIST[i] = rnd.nextLong();
+        SIDE_KEY = rnd.nextLong();
+    }
+
+    private static boolean valid(int c, int r) {
+        return c >= 0 && c < SIZE && r >= 0 && r < SIZE;
+    }
+
+    // --- 局面状态 ---
+    private final byte[] cells = new byte[CELLS];
+    private final byte[][] count = new byte[3][WINDOWS];   // count[color][w]：窗口 w 中 color 的子数
+    private final int[] fours = new int[3];
+    private final int[] sixes = new int[3];
+    private final int[] linePat = new int[LINES * 3 * PATTERNS];
+    private final int[] pat = new int[3 * PATTERNS];
+    private final byte[] near = new byte[CELLS];
+    private final int[] mark = new int[CELLS];   // windowCells 去重用
+    private int stamp;
+    private long hash;
+    private int side = WHITE;
+
+    // 每一手的两个子，用于悔棋
+    private int[] history = new int[256];
+    private int ply;
+
+    public FastBoard() {
+    }
+
+    /** 清空棋盘，轮到 side 走 */
+    public void reset(int side) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cells[cell] != EMPTY) clear(cell);
+        }
+        this.side = side;
+        ply = 0;
+    }
+
+    /**
+     * 整盘摆上 stones（每格 EMPTY/BLACK/WHITE）、轮到 side 走，不经过逐子 put：
+     * 窗口计数由 LineKernel 一次算出，每条线的棋型只扫一遍。结果与 reset 后逐子 put 相同，着法历史清空。
+     */
+    public void load(byte[] stones, int side) {
+        System.arraycopy(stones, 0, cells, 0, CELLS);
+        java.util.Arrays.fill(near, (byte) 0);
+        hash = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int color = cells[cell];
+            if (color == EMPTY) continue;
+            hash ^= ZOBRIST[color * CELLS + cell];
+            for (int nb : NEIGHBORS[cell]) near[nb]++;
+        }
+        java.util.Arrays.fill(fours, 0);
+        java.util.Arrays.fill(sixes, 0);
+        LineKernel.count(cells, count, fours, sixes);
+        java.util.Arrays.fill(linePat, 0);
+        java.util.Arrays.fill(pat, 0);
+        for (int l = 0; l < LINES; l++) scanLine(l);
+        this.side = side;
+        ply = 0;
+    }
+
+    /** 复制另一块棋盘的全部状态，用于把局面交给搜索线程 */
+    public void copyFrom(FastBoard o) {
+        System.arraycopy(o.cells, 0, cells, 0, CELLS);
+        for (int c = 1; c <= 2; c++) System.arraycopy(o.count[c], 0, count[c], 0, WINDOWS);
+        System.arraycopy(o.fours, 0, fours, 0, 3);
+        System.arraycopy(o.sixes, 0, sixes, 0, 3);
+        System.arraycopy(o.linePat, 0, linePat, 0, linePat.length);
+        System.arraycopy(o.pat, 0, pat, 0, pat.length);
+        System.arraycopy(o.near, 0, near, 0, CELLS);
+        hash = o.hash;
+        side = o.side;
+        if (history.length < o.history.length) history = new int[o.history.length];
+        System.arraycopy(o.history, 0, history, 0, o.ply);
+        ply = o.ply;
+    }
+
+    /** 直接指定轮到谁走（同步局面时使用） */
+    public void setSideToMove(int side) {
+        this.side = side;
+    }
+
+    @Override
+    public int get(int cell) {
+        return cells[cell];
+    }
+
+    @Override
+    public int sideToMove() {
+        return side;
+    }
+
+    @Override
+    public int ply() {
+        return ply;
+    }
+
+    @Override
+    public void play(int move) {
+        int a = Moves.first(move), b = Moves.second(move);
+        put(a, side);
+        if (b != a) put(b, side);
+        if (ply == history.length) history = java.util.Arrays.copyOf(history, ply * 2);
+        history[ply++] = move;
+        side = 3 - side;
+    }
+
+    @Override
+    public void pass() {
+        if (ply == history.length) history = java.util.Arrays.copyOf(history, ply * 2);
+        history[ply++] = Moves.NONE;
+        side = 3 - side;
+        hash ^= SIDE_KEY;
+    }
+
+    @Override
+    public void undo() {
+        int move = history[--ply];
+        side = 3 - side;
+        if (move == Moves.NONE) {
+            hash ^= SIDE_KEY;
+            return;
+        }
+        int a = Moves.first(move), b = Moves.second(move);
+        if (b != a) clear(b);
+        clear(a);
+    }
+
+    @Override
+    public void put(int cell, int color) {
+        cells[cell] = (byte) color;
+        hash ^= ZOBRIST[color * CELLS + cell];
+        int op = 3 - color;
+        byte[] mine = count[color], ops = count[op];
+        for (int i = CELL_WIN_START[cell], end = CELL_WIN_START[cell + 1]; i < end; i++) {
+            int w = CELL_WIN[i];
+            // 对方的威胁窗口被堵住
+            if (mine[w] == 0 && ops[w] >= 4) fours[op]--;
+            int n = ++mine[w];
+            if (ops[w] == 0) {
+                if (n == 4) fours[color]++;
+                if (n == 6) sixes[color]++;
+            }
+        }
+        for (int nb : NEIGHBORS[cell]) near[nb]++;
+        for (int d = 0; d < 4; d++) scanLine(CELL_LINE[cell * 4 + d]);
+    }
+
+    @Override
+    public void clear(int cell) {
+        int color = cells[cell];
+        if (color == EMPTY) return;
+        cells[cell] = EMPTY;
+        hash ^= ZOBRIST[color * CELLS + cell];
+        int op = 3 - color;
+        byte[] mine = count[color], ops = count[op];
+        for (int i = CELL_WIN_START[cell], end = CELL_WIN_START[cell + 1]; i < end; i++) {
+            int w = CELL_WIN[i];
+            int n = mine[w]--;
+            if (ops[w] == 0) {
+                if (n == 4) fours[color]--;
+                if (n == 6) sixes[color]--;
+            }
+            if (n == 1 && ops[w] >= 4) fours[op]++;
+        }
+        for (int nb : NEIGHBORS[cell]) near[nb]--;
+        for (int d = 0; d < 4; d++) scanLine(CELL_LINE[cell * 4 + d]);
+    }
+
+    /** 重新统计一条线上的连子棋型，先减去旧值再加上新值 */
+    private void scanLine(int line) {
+        int base = line * 3 * PATTERNS;
+        for (int k = PATTERNS; k < 3 * PATTERNS; k++) {
+            pat[k] -= linePat[base + k];
+            linePat[base + k] = 0;
+        }
+        int[] lc = LINE_CELLS[line];
+        int n = lc.length;
+        int i = 0;
+        while (i < n) {
+            int c = cells[lc[i]];
+            if (c == EMPTY) {
+                i++;
+                continue;
+            }
+            int j = i + 1;
+            while (j < n && cells[lc[j]] == c) j++;
+            int open = 0;
+            if (i > 0 && cells[lc[i - 1]] == EMPTY) open++;
+            if (j < n && cells[lc[j]] == EMPTY) open++;
+            int k = category(j - i, open);
+            if (k >= 0) linePat[base + c * PATTERNS + k]++;
+            i = j;
+        }
+        for (int k = PATTERNS; k < 3 * PATTERNS; k++) pat[k] += linePat[base + k];
+    }
+
+    /** 连子长度和两端空位数对应的棋型，不计分的返回 -1 */
+    static int category(int len, int open) {
+        if (len >= 6) return P_WIN;
+        if (len == 5) return open > 0 ? P_LIVE_5 : P_DEAD_5;
+        if (len == 4) return open == 2 ? P_LIVE_4 : (open == 1 ? P_DEAD_4 : -1);
+        if (len == 3) return open == 2 ? P_LIVE_3 : (open == 1 ? P_DEAD_3 : -1);
+        if (len == 2) return open == 2 ? P_LIVE_2 : -1;
+        return -1;
+    }
+
+    @Override
+    public int winner() {
+        if (sixes[BLACK] > 0) return BLACK;
+        if (sixes[WHITE] > 0) return WHITE;
+        return EMPTY;
+    }
+
+    @Override
+    public int fours(int color) {
+        return fours[color];
+    }
+
+    @Override
+    public int threatCells(int color, int[] out) {
+        if (fours[color] == 0) return 0;
+        return windowCells(color, 4, out);
+    }
+
+    @Override
+    public int windowCells(int color, int minOwn, int[] out) {
+        byte[] mine = count[color], ops = count[3 - color];
+        if (++stamp == 0) {
+            java.util.Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+        int n = 0;
+        for (int w = 0; w < WINDOWS; w++) {
+            if (mine[w] < minOwn || ops[w] != 0) continue;
+            for (int i = w * WINDOW, end = i + WINDOW; i < end; i++) {
+                int cell = WIN_CELLS[i];
+                if (cells[cell] != EMPTY || mark[cell] == stamp) continue;
+                mark[cell] = stamp;
+                if (n == out.length) return n;
+                out[n++] = cell;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int winningMove(int color) {
+        if (fours[color] == 0) return Moves.NONE;
+        byte[] mine = count[color], ops = count[3 - color];
+        for (int w = 0; w < WINDOWS; w++) {
+            if (mine[w] < 4 || ops[w] != 0) continue;
+            int a = -1, b = -1;
+            for (int i = w * WINDOW, end = i + WINDOW; i < end; i++) {
+                int cell = WIN_CELLS[i];
+                if (cells[cell] != EMPTY) continue;
+                if (a < 0) a = cell;
+                else b = cell;
+            }
+            if (a < 0) continue;
+            if (b < 0) b = anyEmptyExcept(a);
+            return Moves.pack(a, b);
+        }
+        return Moves.NONE;
+    }
+
+    @Override
+    public int anyEmptyExcept(int except) {
+        int fallback = -1;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cell == except || cells[cell] != EMPTY) continue;
+            if (near[cell] > 0) return cell;
+            if (fallback < 0) fallback = cell;
+        }
+        return fallback;
+    }
+
+    @Override
+    public int pattern(int color, int k) {
+        return pat[color * PATTERNS + k];
+    }
+
+    @Override
+    public int potential(int cell, int color) {
+        byte[] mine = count[color], ops = count[3 - color];
+        int s = 0;
+        for (int i = CELL_WIN_START[cell], end = CELL_WIN_START[cell + 1]; i < end; i++) {
+            int w = CELL_WIN[i];
+            if (ops[w] == 0) s += POTENTIAL[mine[w]];
+        }
+        return s;
+    }
+
+    @Override
+    public int interaction(int a, int b, int color) {
+        for (int d = 0; d < 4; d++) {
+            int l = CELL_LINE[a * 4 + d];
+            if (l != CELL_LINE[b * 4 + d]) continue;
+            // 两格至多共一条线；同线且相距不超过 5 才有公共窗口
+            int pa = CELL_POS[a * 4 + d], pb = CELL_POS[b * 4 + d];
+            int lo = Math.min(pa, pb), hi = Math.max(pa, pb);
+            if (hi - lo >= WINDOW) return 0;
+            byte[] mine = count[color], ops = count[3 - color];
+            int s = 0;
+            for (int st = Math.max(0, hi - WINDOW + 1), end = Math.min(lo, LINE_CELLS[l].length - WINDOW); st <= end; st++) {
+                int w = LINE_WIN_START[l] + st;
+                // 己方：窗口多一子；对方：窗口被 a 占住，b 不再从它得分
+                if (ops[w] == 0) s += POTENTIAL[mine[w] + 1] - POTENTIAL[mine[w]];
+                if (mine[w] == 0) s -= POTENTIAL[ops[w]];
+            }
+            return s;
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean near(int cell) {
+        return near[cell] > 0;
+    }
+
+    @Override
+    public long hash() {
+        return hash;
+    }
+}
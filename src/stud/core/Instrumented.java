@@ -0,0 +1,8 @@
+package stud.core;
+
+/**
+ * 能报告自己思考统计的棋手。
+ */
+public interface Instrumented {
+    EngineStats stats();
+}
@@ -0,0 +1,122 @@
+package stud.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 跨对局、跨进程保存的搜索知识：一个内存映射文件，里面是三张 PackedTable：
+ * 深层置换表条目、已证明的算杀结果和开局统计。
+ *
+ * 文件开头 4 KB 是文件头（魔数、版本、三张表的位数），之后依次是三张表的槽。
+ * 映射是按页懒加载的，启动时不读整个文件，查到哪一页才由操作系统读入；
+ * 写入直接落在映射内存里，每盘结束时 force 一次刷回磁盘。
+ * 同一进程里的多个棋手实例共用同一个 KnowledgeFile（按路径缓存），槽的异或校验保证并发读写不会取到坏数据。
+ */
+public class KnowledgeFile {
+
+    private static final int MAGIC = 0x43364B4E;   // "C6KN"
+    private static final int VERSION = 1;
+    private static final int HEADER = 4096;
+
+    private static final Map<Path, KnowledgeFile> OPEN = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final List<MappedByteBuffer> maps = new ArrayList<>();
+    private final TranspositionTable deep;
+    private final ProofTable proofs;
+    private final OpeningBook book;
+
+    /**
+     * 打开（不存在就创建）知识文件。已有的文件按文件头里的大小映射，megabytes 只在新建时使用：
+     * 一半给置换表，各四分之一给证明表和开局统计。
+     */
+    public static KnowledgeFile open(Path path, int megabytes) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        try {
+            return OPEN.computeIfAbsent(key, p -> {
+                try {
+                    return new KnowledgeFile(p, megabytes);
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            });
+        } catch (java.io.UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private KnowledgeFile(Path path, int megabytes) throws IOException {
+        this.path = path;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            int[] bits = new int[3];
+            boolean fresh = ch.size() < HEADER;
+            MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (!fresh && (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)) {
+                throw new IOException(path + " is not a knowledge file of version " + VERSION);
+            }
+            if (fresh) {
+                long mb = Math.max(1, megabytes);
+                bits[0] = PackedTable.bitsForMegabytes(mb / 2);
+                bits[1] = PackedTable.bitsForMegabytes(mb / 4);
+                bits[2] = PackedTable.bitsForMegabytes(mb / 4);
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                for (int i = 0; i < 3; i++) header.putInt(8 + 4 * i, bits[i]);
+            } else {
+                for (int i = 0; i < 3; i++) bits[i] = header.getInt(8 + 4 * i);
+            }
+            maps.add(header);
+
+            long offset = HEADER;
+            ByteBuffer[][] regions = new ByteBuffer[3][];
+            for (int r = 0; r < 3; r++) {
+                int count = PackedTable.segmentCount(bits[r]), bytes = PackedTable.segmentBytes(bits[r]);
+                regions[r] = new ByteBuffer[count];
+                for (int i = 0; i < count; i++) {
+                    MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+                    m.order(ByteOrder.LITTLE_ENDIAN);
+                    maps.add(m);
+                    regions[r][i] = m;
+                    offset += bytes;
+                }
+            }
+            deep = new TranspositionTable(bits[0], regions[0]);
+            proofs = new ProofTable(bits[1], regions[1]);
+            book = new OpeningBook(bits[2], regions[2]);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** 深层置换表条目（深度达到保存门槛的） */
+    public TranspositionTable deep() {
+        return deep;
+    }
+
+    /** 已证明的算杀结果 */
+    public ProofTable proofs() {
+        return proofs;
+    }
+
+    public OpeningBook book() {
+        return book;
+    }
+
+    /** 刷回磁盘 */
+    public void force() {
+        for (MappedByteBuffer m : maps) m.force();
+    }
+}
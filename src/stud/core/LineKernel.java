@@ -0,0 +1,107 @@
+package stud.core;
+
+/**
+ * 整盘重算六格窗口计数的内核：给 FastBoard.load 用，一次算出每个窗口里黑白各几子，以及威胁窗口数和成六数。
+ *
+ * SWAR（一个 long 当 8 个字节通道用）：一条线最长 19 格，按字节摆进 3 个 long（第 i 格在第 i/8 个 long 的第 i%8 字节，
+ * 多出的通道补 0），同一颜色的子在通道里是 1。窗口起点 s 的子数就是 s..s+5 六个通道之和，
+ * 把 long 右移 8k 位（再拼上下一个 long 移出来的部分）逐通道相加 6 次，一条线的全部窗口一起算完；
+ * 通道值不超过 6，不会进位到相邻通道。威胁窗口（己方至少 4 子、对方 0 子）和成六也按通道用位运算判断，最后 bitCount。
+ *
+ * 标量版逐窗口逐格地数，结果与 SWAR 完全相同，作为对照和回退：全局配置 SwarKernel = 0 时使用。
+ * KernelBench 比较两者以及逐子 put 的重建用时。
+ */
+public final class LineKernel {
+
+    /** 全局配置 SwarKernel（默认 1）决定 FastBoard.load 用哪个版本 */
+    public static final boolean SWAR = EngineParams.global("SwarKernel", 1) != 0;
+
+    private static final long LANES = 0x0101010101010101L;     // 每个通道的最低位
+
+    private LineKernel() {
+    }
+
+    /** count 参数需要的数组：下标为颜色，每种颜色 FastBoard 全部窗口数那么长 */
+    public static byte[][] newCounts() {
+        return new byte[3][FastBoard.WINDOWS];
+    }
+
+    /** 按 SWAR 开关整盘计算 count[color][w]，并把各方的威胁窗口数、成六窗口数累加进 fours/sixes */
+    public static void count(byte[] cells, byte[][] count, int[] fours, int[] sixes) {
+        if (SWAR) countSwar(cells, count, fours, sixes);
+        else countScalar(cells, count, fours, sixes);
+    }
+
+    public static void countSwar(byte[] cells, byte[][] count, int[] fours, int[] sixes) {
+        byte[] black = count[EngineBoard.BLACK], white = count[EngineBoard.WHITE];
+        for (int l = 0; l < FastBoard.LINES; l++) {
+            int[] lc = FastBoard.LINE_CELLS[l];
+            int nw = lc.length - FastBoard.WINDOW + 1;
+            if (nw <= 0) continue;
+            // 打包：每格的颜色（0/1/2）放进一个字节通道
+            long w0 = 0, w1 = 0, w2 = 0;
+            for (int i = 0; i < lc.length; i++) {
+                long v = (long) cells[lc[i]] << ((i & 7) << 3);
+                if (i < 8) w0 |= v;
+                else if (i < 16) w1 |= v;
+                else w2 |= v;
+            }
+            // 窗口起点不超过 13，只需要前两个 long 的通道
+            long b0 = w0 & LANES, b1 = w1 & LANES, b2 = w2 & LANES;
+            long h0 = (w0 >>> 1) & LANES, h1 = (w1 >>> 1) & LANES, h2 = (w2 >>> 1) & LANES;
+            long sb0 = sum6(b0, b1), sb1 = sum6(b1, b2);
+            long sw0 = sum6(h0, h1), sw1 = sum6(h1, h2);
+
+            int base = FastBoard.LINE_WIN_START[l];
+            for (int s = 0; s < nw; s++) {
+                int shift = (s & 7) << 3;
+                black[base + s] = (byte) ((s < 8 ? sb0 : sb1) >>> shift);
+                white[base + s] = (byte) ((s < 8 ? sw0 : sw1) >>> shift);
+            }
+            long valid0 = nw >= 8 ? -1L : (1L << (nw << 3)) - 1;
+            long valid1 = nw <= 8 ? 0 : (1L << ((nw - 8) << 3)) - 1;
+            fours[EngineBoard.BLACK] += threats(sb0, sw0, valid0) + threats(sb1, sw1, valid1);
+            fours[EngineBoard.WHITE] += threats(sw0, sb0, valid0) + threats(sw1, sb1, valid1);
+            sixes[EngineBoard.BLACK] += Long.bitCount(six(sb0) & valid0) + Long.bitCount(six(sb1) & valid1);
+            sixes[EngineBoard.WHITE] += Long.bitCount(six(sw0) & valid0) + Long.bitCount(six(sw1) & valid1);
+        }
+    }
+
+    /** 通道 i 变成 lo、hi 两个 long 拼起来的第 i..i+5 个通道之和 */
+    private static long sum6(long lo, long hi) {
+        return lo
+                + (lo >>> 8 | hi << 56)
+                + (lo >>> 16 | hi << 48)
+                + (lo >>> 24 | hi << 40)
+                + (lo >>> 32 | hi << 32)
+                + (lo >>> 40 | hi << 24);
+    }
+
+    /** 己方至少 4 子（通道值 4~6，第 2 位为 1）且对方 0 子的通道个数 */
+    private static int threats(long mine, long ops, long valid) {
+        long open = ~(ops | ops >>> 1 | ops >>> 2) & LANES;
+        return Long.bitCount((mine >>> 2) & open & valid);
+    }
+
+    /** 通道值为 6（第 1、2 位都为 1）的通道，最低位置 1 */
+    private static long six(long sum) {
+        return (sum >>> 1) & (sum >>> 2) & LANES;
+    }
+
+    public static void countScalar(byte[] cells, byte[][] count, int[] fours, int[] sixes) {
+        for (int w = 0; w < FastBoard.WINDOWS; w++) {
+            int b = 0, h = 0;
+            for (int i = w * FastBoard.WINDOW, end = i + FastBoard.WINDOW; i < end; i++) {
+                int c = cells[FastBoard.WIN_CELLS[i]];
+                if (c == EngineBoard.BLACK) b++;
+                else if (c == EngineBoard.WHITE) h++;
+            }
+            count[EngineBoard.BLACK][w] = (byte) b;
+            count[EngineBoard.WHITE][w] = (byte) h;
+            if (h == 0 && b >= 4) fours[EngineBoard.BLACK]++;
+            if (b == 0 && h >= 4) fours[EngineBoard.WHITE]++;
+            if (b == 6) sixes[EngineBoard.BLACK]++;
+            if (h == 6) sixes[EngineBoard.WHITE]++;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package stud.core;
+
+/**
+ * 着法生成：为轮到的一方生成候选着法（Moves.pack 打包），按好坏排好序写入 out，返回个数。
+ */
+public interface MoveGenerator {
+
+    int generate(EngineBoard board, int[] out);
+}
@@ -0,0 +1,136 @@
+package stud.core;
+
+/**
+ * 分阶段、按需生成着法：依次给出
+ * <ol>
+ *     <li>置换表着法；</li>
+ *     <li>一手成六；</li>
+ *     <li>对方有威胁窗口时的防守着法（有威胁时只给这些，后面的阶段不再进行）；</li>
+ *     <li>其余着法：到这一阶段才调用 MoveGenerator 打分排序，本层的杀手着法（同一层别的兄弟节点上
+ *         引起截断的着法）如果在生成的列表里，就挪到最前面。</li>
+ * </ol>
+ * 置换表着法就截断的节点不会调用生成器，昂贵的候选点打分只在真正需要的节点上做。
+ * 杀手着法不在生成之前单独试：连六里兄弟节点的杀手对子多半已经不是好棋，先试反而多搜了约四分之一的节点。
+ * 前面阶段给出过的着法在后面阶段里跳过（两子顺序无关）。
+ *
+ * 每层一个实例，由 AlphaBetaSearcher 持有，不可跨线程共享。
+ */
+public class MovePicker {
+
+    private static final int HASH = 0, WIN = 1, DEFENCE = 2, KILLER = 3, QUIET = 4, DONE = 5;
+
+    private final MoveGenerator generator;
+    private final int[] list;
+    private final int[] tried = new int[1];   // 已经给出的置换表着法，后面阶段要跳过
+
+    private EngineBoard board;
+    private int ttMove;
+    private int[] killers;
+    private int stage;
+    private int index;
+    private int size;
+    private int nTried;
+    private boolean forced;
+    private boolean generated;
+
+    public MovePicker(MoveGenerator generator, int capacity) {
+        this.generator = generator;
+        this.list = new int[capacity];
+    }
+
+    /** 开始在 board 上给出着法；killers 是本层的杀手表（可以含 Moves.NONE） */
+    public void start(EngineBoard board, int ttMove, int[] killers) {
+        this.board = board;
+        this.ttMove = ttMove;
+        this.killers = killers;
+        this.stage = HASH;
+        this.nTried = 0;
+        this.forced = board.fours(3 - board.sideToMove()) > 0;
+        this.generated = false;
+    }
+
+    /** 这个节点是否已经调用过 MoveGenerator（在置换表着法上就截断的节点不会调用） */
+    public boolean generated() {
+        return generated;
+    }
+
+    /** 对方有威胁，只给了防守着法 */
+    public boolean forced() {
+        return forced;
+    }
+
+    /** 下一手，没有了返回 Moves.NONE */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH:
+                    stage = WIN;
+                    if (ttMove != Moves.NONE && playable(ttMove)) {
+                        tried[nTried++] = ttMove;
+                        return ttMove;
+                    }
+                    break;
+                case WIN: {
+                    stage = forced ? DEFENCE : KILLER;
+                    int win = board.winningMove(board.sideToMove());
+                    if (win != Moves.NONE && !triedBefore(win)) {
+                        // 能成六就不用再看别的
+                        stage = DONE;
+                        return win;
+                    }
+                    if (forced) generate();
+                    break;
+                }
+                case DEFENCE:
+                case QUIET:
+                    while (index < size) {
+                        int m = list[index++];
+                        if (!triedBefore(m)) return m;
+                    }
+                    stage = DONE;
+                    break;
+                case KILLER:
+                    stage = QUIET;
+                    generate();
+                    for (int j = killers.length - 1; j >= 0; j--) promote(killers[j]);
+                    break;
+                default:
+                    return Moves.NONE;
+            }
+        }
+    }
+
+    private void generate() {
+        size = generator.generate(board, list);
+        index = 0;
+        generated = true;
+    }
+
+    private void promote(int move) {
+        if (move == Moves.NONE) return;
+        for (int i = 0; i < size; i++) {
+            if (same(list[i], move)) {
+                int m = list[i];
+                System.arraycopy(list, 0, list, 1, i);
+                list[0] = m;
+                return;
+            }
+        }
+    }
+
+    private boolean playable(int move) {
+        int a = Moves.first(move), b = Moves.second(move);
+        return a != b && a < EngineBoard.CELLS && b < EngineBoard.CELLS
+                && board.get(a) == EngineBoard.EMPTY && board.get(b) == EngineBoard.EMPTY;
+    }
+
+    private boolean triedBefore(int move) {
+        for (int i = 0; i < nTried; i++) if (same(tried[i], move)) return true;
+        return false;
+    }
+
+    /** 两子顺序无关地比较 */
+    static boolean same(int x, int y) {
+        return x == y || x == Moves.pack(Moves.second(y), Moves.first(y));
+    }
+}
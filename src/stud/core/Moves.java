@@ -0,0 +1,38 @@
+package stud.core;
+
+import core.game.Move;
+
+/**
+ * 一手两子打包成一个 int：高位是第一子，低 9 位是第二子，避免在搜索里创建 Move 对象。
+ */
+public final class Moves {
+
+    public static final int NONE = -1;
+
+    private Moves() {
+    }
+
+    public static int pack(int a, int b) {
+        return a << 9 | b;
+    }
+
+    public static int first(int move) {
+        return move >>> 9;
+    }
+
+    public static int second(int move) {
+        return move & 511;
+    }
+
+    public static Move toMove(int move) {
+        return new Move(first(move), second(move));
+    }
+
+    public static int of(Move move) {
+        return pack(move.index1(), move.index2());
+    }
+
+    public static String toString(int move) {
+        return move == NONE ? "none" : toMove(move).toString();
+    }
+}
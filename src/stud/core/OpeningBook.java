@@ -0,0 +1,49 @@
+package stud.core;
+
+/**
+ * 开局统计：以“走完这一手之后的局面”的 Zobrist 键为索引，记这一手在多少盘里出现过、走的一方得了多少分。
+ * 每项打包成一个 long：低 24 位局数，其上 24 位得分（胜 2、和 1、负 0），最高位恒为 1。
+ */
+public class OpeningBook extends PackedTable {
+
+    public static final long MISS = 0;
+    public static final int WIN = 2, DRAW = 1, LOSS = 0;
+
+    private static final long USED = 1L << 63;
+    private static final int LIMIT = (1 << 24) - 1;
+
+    public OpeningBook(int bits) {
+        super(bits);
+    }
+
+    OpeningBook(int bits, java.nio.ByteBuffer[] segments) {
+        super(bits, segments);
+    }
+
+    public long probe(long key) {
+        return read(key);
+    }
+
+    /** 记一盘：走完后局面为 key，走的一方得 points 分。读-改-写，同一张表的并发调用在这里串行 */
+    public synchronized void record(long key, int points) {
+        long old = read(key);
+        int games = old == MISS ? 0 : games(old);
+        int score = old == MISS ? 0 : points(old);
+        if (games == LIMIT) return;
+        write(key, USED | (long) (score + points) << 24 | (games + 1));
+    }
+
+    public static int games(long e) {
+        return (int) (e & LIMIT);
+    }
+
+    public static int points(long e) {
+        return (int) (e >>> 24 & LIMIT);
+    }
+
+    /** 走的一方的平均得分，0~1 */
+    public static double score(long e) {
+        int g = games(e);
+        return g == 0 ? 0 : points(e) / (2.0 * g);
+    }
+}
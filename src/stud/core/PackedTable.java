@@ -0,0 +1,115 @@
+package stud.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 堆外的直接映射哈希表，置换表、估值缓存和证明表的共同底层。
+ *
+ * 每个槽 16 字节：第一个 long 存 key ^ data，第二个 long 存 data。读的时候两者异或回来和 key 比对，
+ * 另一个线程写到一半的槽对不上键，就当没命中，所以不用加锁。data 为 0 表示空槽，子类打包时要保证有效数据非 0。
+ *
+ * 存储用 ByteBuffer.allocateDirect 分段申请（每段至多 1 GB），表再大也不占 Java 堆，
+ * GC 停顿与表的大小无关；分段也绕过了单个 ByteBuffer 2 GB 的上限。
+ * 也可以由调用方给出各段（例如 KnowledgeFile 里内存映射的文件区域）。
+ */
+public class PackedTable {
+
+    static final int SLOT_BYTES = 16;
+    static final int SEGMENT_BITS = 26;                  // 每段 2^26 槽 = 1 GB
+
+    /** 遍历所有非空槽 */
+    public interface Visitor {
+        void visit(long key, long data);
+    }
+
+    private final ByteBuffer[] segments;
+    private final long mask;
+    private final int segmentShift;
+    private final int segmentMask;
+
+    /** 2^bits 个槽 */
+    public PackedTable(int bits) {
+        this(bits, allocate(bits));
+    }
+
+    /** 使用调用方给出的存储：segmentCount(bits) 段，每段 segmentBytes(bits) 字节 */
+    protected PackedTable(int bits, ByteBuffer[] segments) {
+        if (segments.length != segmentCount(bits)) throw new IllegalArgumentException("need " + segmentCount(bits) + " segments");
+        mask = (1L << bits) - 1;
+        segmentShift = Math.min(bits, SEGMENT_BITS);
+        segmentMask = (1 << segmentShift) - 1;
+        this.segments = segments;
+    }
+
+    private static ByteBuffer[] allocate(int bits) {
+        ByteBuffer[] segs = new ByteBuffer[segmentCount(bits)];
+        for (int i = 0; i < segs.length; i++) {
+            segs[i] = ByteBuffer.allocateDirect(segmentBytes(bits)).order(ByteOrder.nativeOrder());
+        }
+        return segs;
+    }
+
+    static int segmentCount(int bits) {
+        if (bits < 1 || bits > 40) throw new IllegalArgumentException("table bits out of range: " + bits);
+        return 1 << Math.max(0, bits - SEGMENT_BITS);
+    }
+
+    static int segmentBytes(int bits) {
+        return (1 << Math.min(bits, SEGMENT_BITS)) * SLOT_BYTES;
+    }
+
+    /** 不超过 megabytes 的最大的 2 的幂个槽对应的位数（至少 1 KB） */
+    public static int bitsForMegabytes(long megabytes) {
+        long slots = Math.max(1024, megabytes << 20) / SLOT_BYTES;
+        return 63 - Long.numberOfLeadingZeros(slots);
+    }
+
+    public long slots() {
+        return mask + 1;
+    }
+
+    public long bytes() {
+        return slots() * SLOT_BYTES;
+    }
+
+    /** key 对应槽里的数据，键对不上或空槽返回 0 */
+    protected long read(long key) {
+        long slot = key & mask;
+        ByteBuffer seg = segments[(int) (slot >>> segmentShift)];
+        int off = (int) (slot & segmentMask) * SLOT_BYTES;
+        long data = seg.getLong(off + 8);
+        return data != 0 && (seg.getLong(off) ^ data) == key ? data : 0;
+    }
+
+    /** key 对应槽里现有的数据，不管键是否对得上（供替换策略判断） */
+    protected long occupant(long key) {
+        long slot = key & mask;
+        ByteBuffer seg = segments[(int) (slot >>> segmentShift)];
+        return seg.getLong((int) (slot & segmentMask) * SLOT_BYTES + 8);
+    }
+
+    protected void write(long key, long data) {
+        long slot = key & mask;
+        ByteBuffer seg = segments[(int) (slot >>> segmentShift)];
+        int off = (int) (slot & segmentMask) * SLOT_BYTES;
+        seg.putLong(off, key ^ data);
+        seg.putLong(off + 8, data);
+    }
+
+    /** 依次访问所有非空槽（键按异或还原；别的线程正在写的槽可能给出错的键，调用方只能当作提示） */
+    public void forEach(Visitor v) {
+        for (ByteBuffer seg : segments) {
+            for (int off = 0, end = seg.capacity(); off < end; off += SLOT_BYTES) {
+                long data = seg.getLong(off + 8);
+                if (data != 0) v.visit(seg.getLong(off) ^ data, data);
+            }
+        }
+    }
+
+    public void clear() {
+        for (ByteBuffer seg : segments) {
+            for (int off = 0, end = seg.capacity(); off < end; off += 8) seg.putLong(off, 0);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package stud.core;
+
+/**
+ * 默认着法生成：
+ * <ol>
+ *     <li>能一手成六就只给这一手；</li>
+ *     <li>对方有威胁窗口时只给能全部堵住的着法（堵不住就给一手尽力而为的）；</li>
+ *     <li>否则取双方潜力之和最高的 topK 个点，两两组合，按 s(a) + s(b) + interaction(a, b) 排序后保留前 maxMoves 个。</li>
+ * </ol>
+ * 组合分里的 interaction 只在两点同处一个六格窗口时非零，由窗口编号直接查出（见 EngineBoard.interaction），
+ * 所以给几百个组合打分也只是几次查表，topK 可以放宽，而不必真的落子去估值。
+ */
+public class PairMoveGenerator implements MoveGenerator {
+
+    private final int topK;
+    private final int maxMoves;
+
+    // 复用的缓冲区，生成器不可跨线程共享
+    private final int[] points = new int[EngineBoard.CELLS];
+    private final int[] scores = new int[EngineBoard.CELLS];
+    private final long[] pairs;
+
+    public PairMoveGenerator(int topK, int maxMoves) {
+        this.topK = Math.max(2, topK);
+        this.maxMoves = Math.max(1, maxMoves);
+        this.pairs = new long[this.topK * (this.topK - 1) / 2];
+    }
+
+    public int topK() {
+        return topK;
+    }
+
+    public int maxMoves() {
+        return maxMoves;
+    }
+
+    @Override
+    public int generate(EngineBoard board, int[] out) {
+        int me = board.sideToMove(), op = 3 - me;
+
+        int win = board.winningMove(me);
+        if (win != Moves.NONE) {
+            out[0] = win;
+            return 1;
+        }
+
+        if (board.fours(op) > 0) {
+            int k = topPoints(board, me, topK);
+            int n = Threats.defences(board, op, points, k, out);
+            if (n > 0) return n;
+            int m = Threats.bestEffortDefence(board, op);
+            if (m == Moves.NONE) return 0;
+            out[0] = m;
+            return 1;
+        }
+
+        int k = topPoints(board, me, topK);
+        int n = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = i + 1; j < k; j++) {
+                // 高 32 位放分数，排序后低位就是着法
+                int score = scores[i] + scores[j] + board.interaction(points[i], points[j], me);
+                pairs[n++] = (long) score << 32 | Moves.pack(points[i], points[j]);
+            }
+        }
+        java.util.Arrays.sort(pairs, 0, n);
+        int count = Math.min(n, Math.min(maxMoves, out.length));
+        for (int i = 0; i < count; i++) out[i] = (int) pairs[n - 1 - i];
+        return count;
+    }
+
+    /**
+     * 选出周围有子的空点中，双方潜力之和最高的 limit 个，按分数从高到低放进 points/scores 的前部。
+     */
+    int topPoints(EngineBoard board, int me, int limit) {
+        int op = 3 - me;
+        int n = 0;
+        for (int cell = 0; cell < EngineBoard.CELLS; cell++) {
+            if (board.get(cell) != EngineBoard.EMPTY || !board.near(cell)) continue;
+            points[n] = cell;
+            scores[n] = board.potential(cell, me) + board.potential(cell, op);
+            n++;
+        }
+        // 部分选择排序：只需要前 limit 个
+        return Threats.select(points, scores, n, limit);
+    }
+}
@@ -0,0 +1,55 @@
+package stud.core;
+
+/**
+ * 棋型线性估值：己方各棋型个数 × 分值，减去对方的同样求和再乘防守系数。
+ * 棋型个数由 FastBoard 增量维护，所以估值只是 8 次乘加。
+ */
+public class PatternEvaluator implements Evaluator {
+
+    /** 估值的上下限，留出空间给搜索里的胜负分 */
+    public static final int LIMIT = 500_000_000;
+
+    public static final String[] KEYS = {
+            "SCORE_WIN", "SCORE_LIVE_5", "SCORE_DEAD_5", "SCORE_LIVE_4",
+            "SCORE_DEAD_4", "SCORE_LIVE_3", "SCORE_DEAD_3", "SCORE_LIVE_2"};
+
+    private final int[] scores;
+    private final double defence;
+
+    /** scores 按 FastBoard.P_* 的顺序给出 */
+    public PatternEvaluator(int[] scores, double defence) {
+        if (scores.length != FastBoard.PATTERNS) throw new IllegalArgumentException("need " + FastBoard.PATTERNS + " scores");
+        this.scores = scores.clone();
+        this.defence = defence;
+    }
+
+    /**
+     * 从 weights.properties 读取 prefix.SCORE_* 和 prefix.DEFENCE，没有的用 defaults。
+     * SCORE_WIN 不参与调参，总是用默认值。
+     */
+    public static PatternEvaluator fromWeights(String prefix, int[] defaults, double defence) {
+        int[] s = defaults.clone();
+        for (int k = 1; k < s.length; k++) s[k] = Weights.get(prefix, KEYS[k], defaults[k]);
+        return new PatternEvaluator(s, Weights.get(prefix, "DEFENCE", defence));
+    }
+
+    public int score(int k) {
+        return scores[k];
+    }
+
+    public double defence() {
+        return defence;
+    }
+
+    @Override
+    public int evaluate(EngineBoard board, int color) {
+        int op = 3 - color;
+        long my = 0, opp = 0;
+        for (int k = 0; k < FastBoard.PATTERNS; k++) {
+            my += (long) scores[k] * board.pattern(color, k);
+            opp += (long) scores[k] * board.pattern(op, k);
+        }
+        long v = (long) (my - opp * defence);
+        return (int) Math.max(-LIMIT, Math.min(LIMIT, v));
+    }
+}
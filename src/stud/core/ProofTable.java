@@ -0,0 +1,80 @@
+package stud.core;
+
+/**
+ * 算杀证明表：记下 VCF 已经算清楚的局面，同一步的其他分支和后面几步再遇到时直接取结果。
+ *
+ * 证明成立（进攻方在 depth 手以内必胜，附带第一手）对更大的深度同样成立；
+ * 证明失败只在没有因节点上限提前截断时才记，而且只对不超过记录深度的搜索有效。
+ * 放在堆外（见 PackedTable），每项打包成一个 long：低 18 位着法 + 1，其上 8 位深度，第 62 位表示胜，最高位恒为 1。
+ */
+public class ProofTable extends PackedTable {
+
+    public static final long MISS = 0;
+
+    private static final int DEPTH_SHIFT = 18;
+    private static final long WON = 1L << 62;
+    private static final long USED = 1L << 63;
+
+    private long probes, hits;
+
+    /** 2^bits 个槽，每槽 16 字节 */
+    public ProofTable(int bits) {
+        super(bits);
+    }
+
+    /** 建在给定的存储上（KnowledgeFile 的映射区域） */
+    ProofTable(int bits, java.nio.ByteBuffer[] segments) {
+        super(bits, segments);
+    }
+
+    public long probe(long key) {
+        probes++;
+        long e = read(key);
+        if (e != MISS) hits++;
+        return e;
+    }
+
+    /** 进攻方在 depth 手以内用 move 开始必胜 */
+    public void storeWin(long key, int depth, int move) {
+        write(key, USED | WON | (long) (depth & 0xFF) << DEPTH_SHIFT | (move + 1));
+    }
+
+    /** 在 depth 手以内证明没有连续冲四取胜 */
+    public void storeFail(long key, int depth) {
+        long old = read(key);
+        // 已经有的胜利证明或更深的失败证明更有用
+        if (old != MISS && (won(old) || depth(old) >= depth)) return;
+        write(key, USED | (long) (depth & 0xFF) << DEPTH_SHIFT);
+    }
+
+    public static boolean won(long e) {
+        return (e & WON) != 0;
+    }
+
+    public static int depth(long e) {
+        return (int) (e >>> DEPTH_SHIFT & 0xFF);
+    }
+
+    public static int move(long e) {
+        return (int) (e & 0x3FFFF) - 1;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        probes = hits = 0;
+    }
+
+    public long probes() {
+        return probes;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("proofs=%d/%d hit", hits, probes);
+    }
+}
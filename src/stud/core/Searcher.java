@@ -0,0 +1,9 @@
+package stud.core;
+
+/**
+ * 搜索器：给轮到的一方找一手最好的棋，找不到返回 Moves.NONE。
+ */
+public interface Searcher {
+
+    int search(EngineBoard board, int depth);
+}
@@ -0,0 +1,262 @@
+package stud.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 必胜棋型库：离线枚举出的“轮到的一方在 5×5 范围内有这几个子就能连续冲四取胜”的局部棋型，
+ * 连同第一手攻击着法一起存成一张开放寻址的哈希表（见 stud.tools.ShapeBuilder）。
+ *
+ * 棋型的键是 5×5 格里己方棋子的位图（25 位），先平移到左上角、再在 8 种旋转/翻转里取最小值，
+ * 所以对称的棋型只存一份；着法用相对规范棋型左上角的行列偏移存，查到后按同一变换换回棋盘坐标。
+ *
+ * 实战里对方棋子总是贴着棋型，查到的杀法不一定还成立（生成时试过用“要害格”和随机撒子复验来筛，
+ * 实战局面里一个也留不下），所以库只负责提名：candidates 在最近几手落下的己方棋子附近，
+ * 枚举其中落在同一个 5×5 范围里的子集查表，给出候选的第一手；子集个数有上限，是常数时间。
+ * 调用方再用 ThreatSearcher.wins 只对这一手验证，省掉算杀根节点上的着法生成和逐个尝试。
+ */
+public class ShapeLibrary {
+
+    public static final int BOX = 5;
+
+    private static final int MAGIC = 0x43365348;   // "C6SH"
+    private static final int VERSION = 1;
+    private static final int MAX_NEAR = 10;        // 参与枚举的己方棋子最多几个
+    private static final int BIAS = 16;            // 着法偏移加上它存成 6 位
+
+    private static final Map<Path, ShapeLibrary> LOADED = new ConcurrentHashMap<>();
+
+    private final int maxStones;
+    private int[] keys;
+    private int[] moves;
+    private int size;
+
+    /** 空库：棋型最多 maxStones 子 */
+    public ShapeLibrary(int maxStones) {
+        this.maxStones = maxStones;
+        this.keys = new int[64];
+        this.moves = new int[64];
+    }
+
+    /** 读入棋型库文件，同一路径在进程里只读一次 */
+    public static ShapeLibrary load(Path path) throws IOException {
+        try {
+            return LOADED.computeIfAbsent(path.toAbsolutePath().normalize(), p -> {
+                try {
+                    return read(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ShapeLibrary read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(path + " is not a shape library of version " + VERSION);
+            }
+            ShapeLibrary lib = new ShapeLibrary(in.readInt());
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) lib.add(in.readInt(), in.readInt());
+            return lib;
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxStones);
+            out.writeInt(size);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    out.writeInt(keys[i]);
+                    out.writeInt(moves[i]);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maxStones() {
+        return maxStones;
+    }
+
+    /** 登记一个规范棋型（canonical 的结果）和它的第一手（packMove 打包） */
+    public void add(int key, int move) {
+        if (2 * (size + 1) > keys.length) grow();
+        int i = slot(key);
+        if (keys[i] == 0) size++;
+        keys[i] = key;
+        moves[i] = move;
+    }
+
+    public boolean contains(int key) {
+        return keys[slot(key)] != 0;
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int i = (key * 0x9E3779B9 >>> 7) & mask;
+        while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys, oldMoves = moves;
+        keys = new int[oldKeys.length * 2];
+        moves = new int[oldMoves.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) if (oldKeys[i] != 0) add(oldKeys[i], oldMoves[i]);
+    }
+
+    /**
+     * 在 anchors（最近落下的己方棋子）附近找库里的棋型，把它们的第一手（两格都空、去重）写进 out，返回个数。
+     * 只枚举至少含一个 anchor 的子集，写满 out 就停。
+     */
+    public int candidates(EngineBoard board, int[] anchors, int nAnchors, int[] out) {
+        int me = board.sideToMove();
+        int[] near = new int[MAX_NEAR];
+        int n = 0;
+        for (int a = 0; a < nAnchors && n < MAX_NEAR; a++) {
+            if (board.get(anchors[a]) == me && indexOf(near, n, anchors[a]) < 0) near[n++] = anchors[a];
+        }
+        int fresh = n;
+        for (int a = 0; a < fresh && n < MAX_NEAR; a++) {
+            int ar = near[a] / EngineBoard.SIZE, ac = near[a] % EngineBoard.SIZE;
+            for (int r = Math.max(0, ar - BOX + 1); r <= Math.min(EngineBoard.SIZE - 1, ar + BOX - 1) && n < MAX_NEAR; r++) {
+                for (int c = Math.max(0, ac - BOX + 1); c <= Math.min(EngineBoard.SIZE - 1, ac + BOX - 1) && n < MAX_NEAR; c++) {
+                    int cell = r * EngineBoard.SIZE + c;
+                    if (board.get(cell) == me && indexOf(near, n, cell) < 0) near[n++] = cell;
+                }
+            }
+        }
+        // 库被多个棋手共用，缓冲区每次现分配
+        int[] rows = new int[maxStones], cols = new int[maxStones];
+        int found = 0;
+        for (int a = 0; a < fresh && found < out.length; a++) {
+            rows[0] = near[a] / EngineBoard.SIZE;
+            cols[0] = near[a] % EngineBoard.SIZE;
+            // 比 a 小的新子已经作为第一个子枚举过，不再重复
+            found = extend(board, near, a + 1, n, rows, cols, 1, out, found);
+        }
+        return found;
+    }
+
+    /** 已选 k 个子（仍在一个 5×5 范围内），查表后从 near[from..n) 里再加一子；返回 out 里已有的候选数 */
+    private int extend(EngineBoard board, int[] near, int from, int n, int[] rows, int[] cols, int k,
+                       int[] out, int found) {
+        if (k >= 2) {
+            int move = lookup(board, rows, cols, k);
+            if (move != Moves.NONE && indexOf(out, found, move) < 0) out[found++] = move;
+        }
+        for (int i = from; i < n && k < maxStones && found < out.length; i++) {
+            rows[k] = near[i] / EngineBoard.SIZE;
+            cols[k] = near[i] % EngineBoard.SIZE;
+            if (max(rows, k + 1) - min(rows, k + 1) >= BOX || max(cols, k + 1) - min(cols, k + 1) >= BOX) continue;
+            found = extend(board, near, i + 1, n, rows, cols, k + 1, out, found);
+        }
+        return found;
+    }
+
+    /** rows/cols 这 k 个子组成库里的棋型、着法两格都空时返回着法 */
+    private int lookup(EngineBoard board, int[] rows, int[] cols, int k) {
+        int best = Integer.MAX_VALUE, t = 0;
+        for (int s = 0; s < 8; s++) {
+            int key = key(rows, cols, k, s);
+            if (key < best) {
+                best = key;
+                t = s;
+            }
+        }
+        int i = slot(best);
+        if (keys[i] == 0) return Moves.NONE;
+
+        // 规范坐标 = T(棋盘坐标) - 变换后的左上角
+        int or = Integer.MAX_VALUE, oc = Integer.MAX_VALUE;
+        for (int s = 0; s < k; s++) {
+            or = Math.min(or, tr(t, rows[s], cols[s]));
+            oc = Math.min(oc, tc(t, rows[s], cols[s]));
+        }
+        int a = toBoard(t, or, oc, (moves[i] >>> 18 & 63) - BIAS, (moves[i] >>> 12 & 63) - BIAS);
+        int b = toBoard(t, or, oc, (moves[i] >>> 6 & 63) - BIAS, (moves[i] & 63) - BIAS);
+        if (a < 0 || b < 0 || board.get(a) != EngineBoard.EMPTY || board.get(b) != EngineBoard.EMPTY) return Moves.NONE;
+        return Moves.pack(a, b);
+    }
+
+    /** 规范坐标 (dr, dc) 换回棋盘格子：先加回左上角，再撤销取负，再撤销交换；出了棋盘返回 -1 */
+    private static int toBoard(int t, int or, int oc, int dr, int dc) {
+        int x = dr + or, y = dc + oc;
+        if ((t & 1) != 0) x = -x;
+        if ((t & 2) != 0) y = -y;
+        int r = (t & 4) != 0 ? y : x, c = (t & 4) != 0 ? x : y;
+        if (r < 0 || r >= EngineBoard.SIZE || c < 0 || c >= EngineBoard.SIZE) return -1;
+        return r * EngineBoard.SIZE + c;
+    }
+
+    /** k 个子在 8 种变换里最小的位图，即规范键；棋子必须落在一个 5×5 范围内 */
+    public static int canonical(int[] rows, int[] cols, int k) {
+        int best = Integer.MAX_VALUE;
+        for (int t = 0; t < 8; t++) best = Math.min(best, key(rows, cols, k, t));
+        return best;
+    }
+
+    /** 按变换 t 变换后平移到左上角的位图 */
+    private static int key(int[] rows, int[] cols, int k, int t) {
+        int or = Integer.MAX_VALUE, oc = Integer.MAX_VALUE;
+        for (int s = 0; s < k; s++) {
+            or = Math.min(or, tr(t, rows[s], cols[s]));
+            oc = Math.min(oc, tc(t, rows[s], cols[s]));
+        }
+        int key = 0;
+        for (int s = 0; s < k; s++) key |= 1 << ((tr(t, rows[s], cols[s]) - or) * BOX + tc(t, rows[s], cols[s]) - oc);
+        return key;
+    }
+
+    /** 变换 t：第 3 位交换行列，之后第 1 位行取负、第 2 位列取负 */
+    private static int tr(int t, int r, int c) {
+        int x = (t & 4) != 0 ? c : r;
+        return (t & 1) != 0 ? -x : x;
+    }
+
+    private static int tc(int t, int r, int c) {
+        int x = (t & 4) != 0 ? r : c;
+        return (t & 2) != 0 ? -x : x;
+    }
+
+    /** 规范棋型（键的左上角为原点）里的两格着法打包成库里存的形式，偏移要在 [-16, 47] 内 */
+    public static int packMove(int dr1, int dc1, int dr2, int dc2) {
+        return ((dr1 + BIAS) << 6 | (dc1 + BIAS)) << 12 | ((dr2 + BIAS) << 6 | (dc2 + BIAS));
+    }
+
+    private static int indexOf(int[] a, int n, int v) {
+        for (int i = 0; i < n; i++) if (a[i] == v) return i;
+        return -1;
+    }
+
+    private static int min(int[] a, int n) {
+        int m = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) m = Math.min(m, a[i]);
+        return m;
+    }
+
+    private static int max(int[] a, int n) {
+        int m = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) m = Math.max(m, a[i]);
+        return m;
+    }
+}
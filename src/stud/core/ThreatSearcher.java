@@ -0,0 +1,176 @@
+package stud.core;
+
+/**
+ * 连续冲四算杀 (VCF)：进攻方每一手都要造出威胁窗口，逼对方只能去堵，
+ * 直到对方两子堵不住或进攻方直接成六。找到的着法保证在生成的应对里都能取胜。
+ *
+ * 防守方的两子中如果一子已够堵，另一子只考虑防守方潜力最高的几个点，这一点上是近似的。
+ *
+ * 进攻节点的结论记在 ProofTable 里（可以为 null），同一局面再次算杀时直接取用。
+ * 持久知识里的胜利只当着法提示：因为上面的近似，它不是严格的证明，每次都要先重新验证这一手，验证过才记进证明表。
+ */
+public class ThreatSearcher implements Searcher {
+
+    private static final int ATTACK_POINTS = 12;
+    private static final int DEFENCE_PARTNERS = 4;
+
+    private final EngineStats stats;
+    private final Deadline deadline;
+    private final int nodeLimit;
+    private final ProofTable proofs;
+    private ProofTable knowledge;
+    private int nodes;
+    private int truncations;             // 因节点上限放弃的次数，放弃过的失败结论不能记
+    private final int[] cellBuf = new int[EngineBoard.CELLS];
+    private final int[] scoreBuf = new int[EngineBoard.CELLS];
+
+    /** nodeLimit：单次算杀最多展开的节点数，超出就当没找到，避免算杀拖垮整步的用时 */
+    public ThreatSearcher(EngineStats stats, Deadline deadline, int nodeLimit, ProofTable proofs) {
+        this.stats = stats;
+        this.deadline = deadline;
+        this.nodeLimit = nodeLimit;
+        this.proofs = proofs;
+    }
+
+    public ProofTable proofs() {
+        return proofs;
+    }
+
+    /** 证明表里没有时再查的持久知识（KnowledgeFile 里保存的胜利），查到的着法先验证再用。传 null 关闭 */
+    public ThreatSearcher knowledge(ProofTable saved) {
+        this.knowledge = saved;
+        return this;
+    }
+
+    @Override
+    public int search(EngineBoard board, int depth) {
+        int me = board.sideToMove();
+        int win = board.winningMove(me);
+        if (win != Moves.NONE) return win;
+        if (board.fours(3 - me) > 0) return Moves.NONE;
+        nodes = 0;
+        int ply = board.ply();
+        try {
+            return attack(board, depth);
+        } catch (Deadline.SearchTimeout e) {
+            while (board.ply() > ply) board.undo();
+            throw e;
+        }
+    }
+
+    /**
+     * 轮到的一方走 move 之后，对方在生成的应对里是否都化解不了；depth 与 search 的含义相同。
+     * move 没造出威胁窗口的不算（refuted 只处理有窗口要堵的局面）。
+     */
+    public boolean wins(EngineBoard board, int move, int depth) {
+        int me = board.sideToMove();
+        nodes = 0;
+        int ply = board.ply();
+        try {
+            board.play(move);
+            boolean won = board.winner() == me || board.fours(me) > 0 && !refuted(board, depth);
+            board.undo();
+            return won;
+        } catch (Deadline.SearchTimeout e) {
+            while (board.ply() > ply) board.undo();
+            throw e;
+        }
+    }
+
+    /** 轮到进攻方，返回能赢的着法或 NONE */
+    private int attack(EngineBoard board, int depth) {
+        stats.node();
+        deadline.check();
+        if (depth <= 0) return Moves.NONE;
+        if (++nodes > nodeLimit) {
+            truncations++;
+            return Moves.NONE;
+        }
+        int me = board.sideToMove();
+        long key = board.hash();
+        int hint = Moves.NONE;
+        if (proofs != null) {
+            long e = proofs.probe(key);
+            if (e != ProofTable.MISS) {
+                if (ProofTable.won(e) && ProofTable.depth(e) <= depth) return ProofTable.move(e);
+                if (!ProofTable.won(e) && ProofTable.depth(e) >= depth) return Moves.NONE;
+            } else if (knowledge != null) {
+                e = knowledge.probe(key);
+                if (ProofTable.won(e) && ProofTable.depth(e) <= depth) hint = ProofTable.move(e);
+            }
+        }
+
+        int before = truncations;
+        if (hint != Moves.NONE && empty(board, hint)) {
+            // 以前的对局里赢过：先按现在的应对重新验证这一手，不直接当结论
+            board.play(hint);
+            boolean won = board.winner() == me || board.fours(me) > 0 && !refuted(board, depth);
+            board.undo();
+            if (won) {
+                proofs.storeWin(key, depth, hint);
+                return hint;
+            }
+        }
+        int[] attacks = attackMoves(board, me);
+        for (int m : attacks) {
+            board.play(m);
+            boolean won = board.winner() == me || !refuted(board, depth);
+            board.undo();
+            if (won) {
+                if (proofs != null) proofs.storeWin(key, depth, m);
+                return m;
+            }
+        }
+        if (proofs != null && truncations == before) proofs.storeFail(key, depth);
+        return Moves.NONE;
+    }
+
+    /** 轮到防守方：只要有一种堵法能让进攻方接不上，就算被化解 */
+    private boolean refuted(EngineBoard board, int depth) {
+        stats.node();
+        deadline.check();
+        int defender = board.sideToMove(), attacker = 3 - defender;
+        // 防守方自己能成六，进攻失败
+        if (board.fours(defender) > 0) return true;
+
+        int[] partners = topPoints(board, defender, DEFENCE_PARTNERS);
+        int[] defences = new int[128];
+        int n = Threats.defences(board, attacker, partners, partners.length, defences);
+        if (n == 0) return false;   // 堵不住
+
+        for (int i = 0; i < n; i++) {
+            board.play(defences[i]);
+            boolean ok;
+            if (board.fours(defender) > 0) {
+                ok = true;          // 堵的同时造出了反威胁
+            } else {
+                ok = attack(board, depth - 1) == Moves.NONE;
+            }
+            board.undo();
+            if (ok) return true;
+        }
+        return false;
+    }
+
+    /** 提示着法的两子都落在空格上（键冲突时可能取到别的局面的着法） */
+    private static boolean empty(EngineBoard board, int move) {
+        int a = Moves.first(move), b = Moves.second(move);
+        return a != b && a < EngineBoard.CELLS && b < EngineBoard.CELLS
+                && board.get(a) == EngineBoard.EMPTY && board.get(b) == EngineBoard.EMPTY;
+    }
+
+    /** 能造出威胁窗口的两子着法 */
+    private int[] attackMoves(EngineBoard board, int me) {
+        int np = Threats.attackPoints(board, me, ATTACK_POINTS, cellBuf, scoreBuf);
+        int[] pts = java.util.Arrays.copyOf(cellBuf, np);
+        int[] out = new int[np * (np - 1) / 2];
+        int n = Threats.attacks(board, me, pts, np, 1, out);
+        return java.util.Arrays.copyOf(out, n);
+    }
+
+    /** color 潜力最高的 limit 个周围有子的空点 */
+    private int[] topPoints(EngineBoard board, int color, int limit) {
+        int k = Threats.topPoints(board, color, limit, cellBuf, scoreBuf);
+        return java.util.Arrays.copyOf(cellBuf, k);
+    }
+}
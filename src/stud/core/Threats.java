@@ -0,0 +1,126 @@
+package stud.core;
+
+/**
+ * 威胁相关的公共逻辑：基于 FastBoard 的威胁窗口判断能否一手成六、怎样两子堵住对方所有威胁。
+ */
+public final class Threats {
+
+    private Threats() {
+    }
+
+    /**
+     * 生成能堵住 attacker 全部威胁窗口的两子着法，写入 out，返回个数（最多 out.length）。
+     *
+     * 候选子来自威胁窗口里的空格：一个子就能全堵住的，再和 partners 里的点（通常是高分点）配对；
+     * 否则试威胁空格两两组合。堵不住时返回 0。
+     */
+    public static int defences(EngineBoard board, int attacker, int[] partners, int nPartners, int[] out) {
+        int defender = 3 - attacker;
+        int[] cells = new int[64];
+        int nc = board.threatCells(attacker, cells);
+        if (nc == 0) return 0;
+
+        int n = 0;
+        boolean[] single = new boolean[nc];
+        for (int i = 0; i < nc; i++) {
+            board.put(cells[i], defender);
+            single[i] = board.fours(attacker) == 0;
+            board.clear(cells[i]);
+        }
+        // 一子全堵：另一子自由选择
+        for (int i = 0; i < nc && n < out.length; i++) {
+            if (!single[i]) continue;
+            for (int j = 0; j < nPartners && n < out.length; j++) {
+                int p = partners[j];
+                if (p == cells[i] || board.get(p) != EngineBoard.EMPTY) continue;
+                n = add(out, n, cells[i], p);
+            }
+            for (int j = i + 1; j < nc && n < out.length; j++) n = add(out, n, cells[i], cells[j]);
+        }
+        // 需要两子一起堵
+        for (int i = 0; i < nc && n < out.length; i++) {
+            if (single[i]) continue;
+            for (int j = i + 1; j < nc && n < out.length; j++) {
+                if (single[j]) continue;
+                board.put(cells[i], defender);
+                board.put(cells[j], defender);
+                boolean ok = board.fours(attacker) == 0;
+                board.clear(cells[j]);
+                board.clear(cells[i]);
+                if (ok) n = add(out, n, cells[i], cells[j]);
+            }
+        }
+        return n;
+    }
+
+    private static int add(int[] out, int n, int a, int b) {
+        int m = a < b ? Moves.pack(a, b) : Moves.pack(b, a);
+        for (int i = 0; i < n; i++) if (out[i] == m) return n;
+        out[n++] = m;
+        return n;
+    }
+
+    /**
+     * color 潜力最高的 limit 个周围有子的空点，按潜力从高到低放进 cells 前部，返回个数。
+     * cells/scores 是调用方提供的缓冲区，长度至少为 CELLS。
+     */
+    public static int topPoints(EngineBoard board, int color, int limit, int[] cells, int[] scores) {
+        int n = 0;
+        for (int cell = 0; cell < EngineBoard.CELLS; cell++) {
+            if (board.get(cell) != EngineBoard.EMPTY || !board.near(cell)) continue;
+            cells[n] = cell;
+            scores[n] = board.potential(cell, color);
+            n++;
+        }
+        return select(cells, scores, n, limit);
+    }
+
+    /**
+     * 可能参与冲四的点：在 color 至少两子、没有对方子的窗口里，按潜力取前 limit 个。
+     * 比 topPoints 少扫很多格子，静态搜索和算杀都用它。
+     */
+    public static int attackPoints(EngineBoard board, int color, int limit, int[] cells, int[] scores) {
+        int n = board.windowCells(color, 2, cells);
+        for (int i = 0; i < n; i++) scores[i] = board.potential(cells[i], color);
+        return select(cells, scores, n, limit);
+    }
+
+    /** 部分选择排序：把分数最高的 limit 个按从高到低放到 cells/scores 前部，返回个数。几个着法生成器共用 */
+    static int select(int[] cells, int[] scores, int n, int limit) {
+        int k = Math.min(limit, n);
+        for (int i = 0; i < k; i++) {
+            int best = i;
+            for (int j = i + 1; j < n; j++) if (scores[j] > scores[best]) best = j;
+            int t = cells[i]; cells[i] = cells[best]; cells[best] = t;
+            t = scores[i]; scores[i] = scores[best]; scores[best] = t;
+        }
+        return k;
+    }
+
+    /**
+     * 冲四着法：points 中两两组合，落下后 color 至少有 minFours 个威胁窗口的，写入 out，返回个数。
+     * 调用时 color 应该是轮到走的一方。
+     */
+    public static int attacks(EngineBoard board, int color, int[] points, int np, int minFours, int[] out) {
+        int n = 0;
+        for (int i = 0; i < np && n < out.length; i++) {
+            board.put(points[i], color);
+            for (int j = i + 1; j < np && n < out.length; j++) {
+                board.put(points[j], color);
+                if (board.fours(color) >= minFours) out[n++] = Moves.pack(points[i], points[j]);
+                board.clear(points[j]);
+            }
+            board.clear(points[i]);
+        }
+        return n;
+    }
+
+    /** 堵不住时的尽力而为：堵威胁空格里的前两个 */
+    public static int bestEffortDefence(EngineBoard board, int attacker) {
+        int[] cells = new int[64];
+        int nc = board.threatCells(attacker, cells);
+        if (nc == 0) return Moves.NONE;
+        int b = nc > 1 ? cells[1] : board.anyEmptyExcept(cells[0]);
+        return Moves.pack(cells[0], b);
+    }
+}
@@ -0,0 +1,89 @@
+package stud.core;
+
+/**
+ * 置换表：以 Zobrist 键为索引保存搜索过的局面的值、深度和最佳着法，直接映射，深度优先替换。
+ *
+ * 放在堆外（见 PackedTable），每项打包成一个 long：
+ * 低 32 位分数，其上 18 位着法 + 1，6 位深度，2 位标志，5 位代数，最高位恒为 1（区分空槽）。
+ * probe 返回打包的项，用 value/depth/flag/move 取字段，未命中返回 MISS。
+ */
+public class TranspositionTable extends PackedTable {
+
+    public static final int EXACT = 0, LOWER = 1, UPPER = 2;
+    public static final long MISS = 0;
+
+    private static final int MOVE_SHIFT = 32, DEPTH_SHIFT = 50, FLAG_SHIFT = 56, AGE_SHIFT = 58;
+    private static final long USED = 1L << 63;
+
+    private int age;
+    private long probes, hits;
+
+    /** 2^bits 个槽，每槽 16 字节 */
+    public TranspositionTable(int bits) {
+        super(bits);
+    }
+
+    /** 建在给定的存储上（KnowledgeFile 的映射区域） */
+    TranspositionTable(int bits, java.nio.ByteBuffer[] segments) {
+        super(bits, segments);
+    }
+
+    public long probe(long key) {
+        probes++;
+        long e = read(key);
+        if (e != MISS) hits++;
+        return e;
+    }
+
+    public void store(long key, int depth, int value, int flag, int move) {
+        long old = occupant(key);
+        // 别的局面占着、是本次搜索存的而且更深，就不替换
+        if (old != MISS && read(key) == MISS && age(old) == (age & 31) && depth(old) > depth) return;
+        long e = USED
+                | (long) (age & 31) << AGE_SHIFT
+                | (long) (flag & 3) << FLAG_SHIFT
+                | (long) Math.max(0, Math.min(63, depth)) << DEPTH_SHIFT
+                | (long) (move + 1) << MOVE_SHIFT
+                | (value & 0xFFFFFFFFL);
+        write(key, e);
+    }
+
+    public static int value(long e) {
+        return (int) e;
+    }
+
+    public static int move(long e) {
+        return (int) (e >>> MOVE_SHIFT & 0x3FFFF) - 1;
+    }
+
+    public static int depth(long e) {
+        return (int) (e >>> DEPTH_SHIFT & 63);
+    }
+
+    public static int flag(long e) {
+        return (int) (e >>> FLAG_SHIFT & 3);
+    }
+
+    private static int age(long e) {
+        return (int) (e >>> AGE_SHIFT & 31);
+    }
+
+    /** 开始新一步的搜索：旧的条目仍可命中，但可以被浅层结果替换 */
+    public void newSearch() {
+        age++;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        probes = hits = 0;
+    }
+
+    public long probes() {
+        return probes;
+    }
+
+    public long hits() {
+        return hits;
+    }
+}
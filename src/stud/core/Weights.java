@@ -0,0 +1,58 @@
+package stud.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * 估值权重文件。启动时读取一次（默认工作目录下的 weights.properties，
+ * 可用 -Dstud.weights=路径 指定），文件不存在时各估值器使用代码里的默认值。
+ *
+ * 键名为 "棋手前缀.权重名"，例如 g09.SCORE_LIVE_3 = 50000，由 WeightTuner 生成。
+ */
+public final class Weights {
+
+    public static final String DEFAULT_FILE = "weights.properties";
+
+    private static final Properties PROPS = load();
+
+    private Weights() {
+    }
+
+    private static Properties load() {
+        Properties p = new Properties();
+        Path path = Paths.get(System.getProperty("stud.weights", DEFAULT_FILE));
+        if (Files.isRegularFile(path)) {
+            try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                p.load(in);
+            } catch (IOException e) {
+                System.err.println("cannot read weight file " + path + ": " + e);
+            }
+        }
+        return p;
+    }
+
+    public static int get(String engine, String key, int def) {
+        String v = PROPS.getProperty(engine + "." + key);
+        if (v == null) return def;
+        try {
+            return (int) Math.round(Double.parseDouble(v.trim()));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public static double get(String engine, String key, double def) {
+        String v = PROPS.getProperty(engine + "." + key);
+        if (v == null) return def;
+        try {
+            return Double.parseDouble(v.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+}
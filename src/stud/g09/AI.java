@@ -1,2 +1,9 @@
 package stud.g09;
-public class AI extends SmartAI {}
\ No newline at end of file
+
+import stud.core.EngineParams;
+
+public class AI extends SmartAI {
+    public AI() {}
+
+    public AI(EngineParams params) { super(params); }
+}
@@ -1,508 +1,63 @@
 package stud.g99;
 
-import core.board.Board;
-import core.board.PieceColor;
-import core.game.Game;
-import core.game.Move;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import stud.core.Engine;
+import stud.core.EngineParams;
+import stud.core.PatternEvaluator;
+import stud.core.Weights;
 
 /**
- * G09 AI Optimized for Connect6
- * ԣAlpha-Beta  + ȷ + в֦
+ * G99 AI for Connect6
+ * ԣ2  Alpha-Betaѡ15 ϣɱϵϴ
+ *  stud.core.Engine ʵֻ֣һá
  */
-public class AI extends core.player.AI {
+public class AI extends Engine {
 
-    private static final int WIDTH = 19;
-    private static final int SIZE = 361;
-
-    // ӱʾ
-    private static final int EMPTY = 0;
-    private static final int BLACK = 1;
-    private static final int WHITE = 2;
-    private static final int BORDER = 3; // ڱ߽ж
-
-    // Ȩ (Connect6 )
+    // Ȩ (Connect6 )ɱ weights.properties  g99.* 
     // Ӯ
     private static final int SCORE_WIN = 10_000_000;
-    //  (ӱس)   (һӳ) -> в
-    private static final int SCORE_FIVE = 1_000_000;
+    //  (ӱس)   (һӳ) -> вĬͬ
+    private static final int SCORE_LIVE_5 = Weights.get("g99", "SCORE_LIVE_5", 1_000_000);
+    private static final int SCORE_DEAD_5 = Weights.get("g99", "SCORE_DEAD_5", 1_000_000);
     //  (_XXXX_) -> һּӳʤ
-    private static final int SCORE_LIVE_4 = 500_000;
+    private static final int SCORE_LIVE_4 = Weights.get("g99", "SCORE_LIVE_4", 500_000);
     //  (OXXXX_) -> 赲
-    private static final int SCORE_DEAD_4 = 50_000;
+    private static final int SCORE_DEAD_4 = Weights.get("g99", "SCORE_DEAD_4", 50_000);
     //  (_XXX_) -> ǿǱ
-    private static final int SCORE_LIVE_3 = 5_000;
+    private static final int SCORE_LIVE_3 = Weights.get("g99", "SCORE_LIVE_3", 5_000);
     //  (OXXX_)
-    private static final int SCORE_DEAD_3 = 500;
+    private static final int SCORE_DEAD_3 = Weights.get("g99", "SCORE_DEAD_3", 500);
     //  (_XX_)
-    private static final int SCORE_LIVE_2 = 100;
+    private static final int SCORE_LIVE_2 = Weights.get("g99", "SCORE_LIVE_2", 100);
+    // ϵ (ַȨ)
+    private static final double DEFENCE = Weights.get("g99", "DEFENCE", 2.0);
 
-    // 
+    // Ĭֵ file.properties / engine.properties  G99.* 
     private static final int MAX_DEPTH = 2; // ֧2Ϻõ㹻ǿ
     private static final int SEARCH_CANDIDATES = 15; // ÿֻѡǰN߷ֵ
 
-    private final int[] grid = new int[SIZE];
-    private int myColorInt;
-    private int oppColorInt;
-
-    // ң££
-    private static final int[] DX = {1, 0, 1, 1};
-    private static final int[] DY = {0, 1, 1, -1};
-
-    @Override
-    public String name() {
-        return "G99";
-    }
-
-    @Override
-    public void playGame(Game game) {
-        super.playGame(game);
-        this.board = new Board();
-    }
-
-    @Override
-    public Move findNextMove(Move opponentMove) {
-        if (opponentMove != null) {
-            this.board.makeMove(opponentMove);
-        }
-
-        // 1. ̲ͬȷɫ
-        int stones = 0;
-        for (int i = 0; i < SIZE; i++) {
-            PieceColor c = this.board.get(i);
-            if (c == PieceColor.BLACK) {
-                grid[i] = BLACK;
-                stones++;
-            } else if (c == PieceColor.WHITE) {
-                grid[i] = WHITE;
-                stones++;
-            } else {
-                grid[i] = EMPTY;
-            }
-        }
-
-        // жִɫ (Black1ӣ֮ÿ2ӡ%4==10ʱðףúڣ)
-        // ʵϿ stones жϡ
-        // Move 0: Black(1) -> stones=1. White move.
-        // Move 1: White(2) -> stones=3. Black move.
-        // Move 2: Black(2) -> stones=5. White move.
-        // : (stones + 1) / 2 ǻغ
-        // жϣǰ board.get(lastMove) Ǻڣǰף֮Ȼ
-        // ֱӸ stones żж˭£עһ
-        // 赱ǰֵ£
-        if (stones == 0) { // ֺ壬ֻһ
-            // ռԪ
-            myColorInt = BLACK;
-            oppColorInt = WHITE;
-            // ޸Move 캯Ҫʹ -1 ΪЧĵڶ
-            return new Move(WIDTH/2 * WIDTH + WIDTH/2, -1);
-        }
-
-        // жɫ߼Ѵƶ
-        // һ˵ܻᱣ֤ findNextMove ʱҵĻغ
-        // ϺӶڰӣҲֵΪ1ֵӡ
-        int blackCnt = 0, whiteCnt = 0;
-        for(int x : grid) { if(x == BLACK) blackCnt++; else if(x == WHITE) whiteCnt++; }
-
-        if (blackCnt > whiteCnt) {
-            myColorInt = WHITE;
-            oppColorInt = BLACK;
-        } else {
-            myColorInt = BLACK;
-            oppColorInt = WHITE;
-        }
-
-        // 2. ִ
-        Move bestMove = alphaBetaSearch();
-        this.board.makeMove(bestMove);
-        return bestMove;
-    }
-
-    // ---  ---
-
-    private Move alphaBetaSearch() {
-        // һǷֱӻʤ߷
-        List<MyMove> winMoves = findWinningMoves(myColorInt);
-        if (!winMoves.isEmpty()) return winMoves.get(0).toMove();
-
-        // ڶǷأԷбʤΣ
-        List<MyMove> forcedMoves = findForcedDefenseMoves();
-
-        List<MyMove> moves;
-        if (!forcedMoves.isEmpty()) {
-            moves = forcedMoves; // ȷأֻЩ߷
-        } else {
-            moves = generateMoves(myColorInt); // 
-        }
-
-        if (moves.isEmpty()) return new Move(getAnyEmpty(), getAnyEmpty());
-
-        MyMove best = moves.get(0);
-        int alpha = -2_000_000_000;
-        int beta = 2_000_000_000;
-
-        for (MyMove m : moves) {
-            applyMove(m, myColorInt);
-            // Ϊ 1 ɣΪ generateMoves Ѿһɸѡ
-            int val = minValue(MAX_DEPTH - 1, alpha, beta);
-            undoMove(m);
-
-            if (val > alpha) {
-                alpha = val;
-                best = m;
-            }
-        }
-        return best.toMove();
-    }
-
-    private int maxValue(int depth, int alpha, int beta) {
-        int score = evaluate();
-        if (depth <= 0 || Math.abs(score) > SCORE_WIN / 2) return score;
-
-        List<MyMove> moves = generateMoves(myColorInt);
-        if (moves.isEmpty()) return score;
-
-        int bestVal = -2_000_000_000;
-        for (MyMove m : moves) {
-            applyMove(m, myColorInt);
-            int val = minValue(depth - 1, alpha, beta);
-            undoMove(m);
-
-            if (val > bestVal) bestVal = val;
-            if (bestVal > alpha) alpha = bestVal;
-            if (beta <= alpha) break;
-        }
-        return bestVal;
-    }
-
-    private int minValue(int depth, int alpha, int beta) {
-        int score = evaluate();
-        if (depth <= 0 || Math.abs(score) > SCORE_WIN / 2) return score;
-
-        List<MyMove> moves = generateMoves(oppColorInt);
-        if (moves.isEmpty()) return score;
-
-        int bestVal = 2_000_000_000;
-        for (MyMove m : moves) {
-            applyMove(m, oppColorInt);
-            int val = maxValue(depth - 1, alpha, beta);
-            undoMove(m);
-
-            if (val < bestVal) bestVal = val;
-            if (bestVal < beta) beta = bestVal;
-            if (beta <= alpha) break;
-        }
-        return bestVal;
-    }
-
-    // --- ߷ɸѡ ---
-
-    // Ѱֱӻʤ߷ (ɻ/)
-    private List<MyMove> findWinningMoves(int color) {
-        List<MyMove> wins = new ArrayList<>();
-        // 򻯵ʽĳγ 6  4ֱӷ
-        // Ҫӵ̽⣬ǰϲ evaluateCandidate 
-        // գ generateMoves 򽫱ʤǰ
-        return wins;
-    }
-
-    // Ѱұص߷赲Էģ
-    private List<MyMove> findForcedDefenseMoves() {
-        // Էĸв
-        List<Integer> threats = getCriticalPoints(oppColorInt);
-        if (threats.isEmpty()) return Collections.emptyList();
-
-        // Щؼ
-        List<MyMove> defense = new ArrayList<>();
-
-        // вǳࣨ>=2Ǳͬʱס߶һ췴в
-        // 򵥲ԣɰв߷
-        int t1 = threats.get(0);
-        int t2 = (threats.size() > 1) ? threats.get(1) : -1;
-
-        if (t2 != -1) {
-            // в붼
-            defense.add(new MyMove(t1, t2));
-        } else {
-            // һвסһѡ߷ֵ
-            List<Integer> candidates = getCandidates(myColorInt, 5);
-            for (int c : candidates) {
-                if (c != t1) defense.add(new MyMove(t1, c));
-            }
-            if (defense.isEmpty()) { // Ҳõĵڶ㣬Ҹھ
-                defense.add(new MyMove(t1, getBestNeighbor(t1)));
-            }
-        }
-        return defense;
-    }
-
-    // ɺѡ߷
-    private List<MyMove> generateMoves(int color) {
-        List<MyMove> moves = new ArrayList<>();
-
-        // 1. ȡߵǰ N 
-        List<Integer> candidates = getCandidates(color, SEARCH_CANDIDATES);
-
-        // 2. Щ
-        // ԣ߷ֵ
-        for (int i = 0; i < candidates.size(); i++) {
-            for (int j = i + 1; j < candidates.size(); j++) {
-                moves.add(new MyMove(candidates.get(i), candidates.get(j)));
-            }
-        }
-
-        // û߷翪֣ѡ
-        if (moves.isEmpty()) {
-            int center = WIDTH/2 * WIDTH + WIDTH/2;
-            if (grid[center] == EMPTY) {
-                moves.add(new MyMove(center, getBestNeighbor(center)));
-            } else {
-                moves.add(new MyMove(getAnyEmpty(), getAnyEmpty()));
-            }
-        }
-        return moves;
-    }
-
-    // пλֵǰ limit 
-    private List<Integer> getCandidates(int color, int limit) {
-        List<PointScore> scores = new ArrayList<>();
-
-        for (int i = 0; i < SIZE; i++) {
-            if (grid[i] != EMPTY) continue;
-
-            //  =  + ط
-            int attack = evaluatePoint(i, color);
-            int defense = evaluatePoint(i, oppColorInt);
-
-            // УͨȽȣǽֱӮ
-            // 򵥵ܷ
-            int score = attack + defense;
-
-            // ĵ΢ӷ֣ƽ֣
-            int cx = WIDTH/2, cy = WIDTH/2;
-            int x = i % WIDTH, y = i / WIDTH;
-            score += (10 - Math.abs(x - cx) - Math.abs(y - cy));
-
-            if (score > 10) { // ˵̫ĵ
-                scores.add(new PointScore(i, score));
-            }
-        }
-
-        Collections.sort(scores);
-
-        List<Integer> result = new ArrayList<>();
-        for (int k = 0; k < Math.min(limit, scores.size()); k++) {
-            result.add(scores.get(k).idx);
-        }
-        return result;
-    }
-
-    // ĳһıؾȵ㣨ġġĿλ
-    private List<Integer> getCriticalPoints(int color) {
-        List<Integer> points = new ArrayList<>();
-        //  evaluatePoint ߣ˵ǹؼ
-        for (int i = 0; i < SIZE; i++) {
-            if (grid[i] != EMPTY) continue;
-            int score = evaluatePoint(i, color);
-            // ˵γɻĻǹؼ
-            if (score >= SCORE_LIVE_4) {
-                points.add(i);
-            }
-        }
-        return points;
-    }
-
-    // ---  ---
-
-    // ȫ̬̾
-    private int evaluate() {
-        int myScore = evaluateColor(myColorInt);
-        int oppScore = evaluateColor(oppColorInt);
-        return myScore - oppScore * 2; // ΢ƫ (Opponent score Ȩظһ)
-    }
-
-    // ɫȫ̷
-    private int evaluateColor(int color) {
-        int total = 0;
-        // ɨĸ
-        // Ϊܣ£ Java ʵΪ˼ȫɨ
-
-        // ˮƽ
-        for(int y=0; y<WIDTH; y++) {
-            for(int x=0; x<WIDTH; x++) {
-                // ߵǰһͬɫʱʼͳƣظ
-                // Ϊ˼򵥣ͳƶ pattern
-                if (grid[y*WIDTH+x] == color) {
-                    // ʵȫɨȽϸӣ򻯣
-                    // пܵ 6 񴰿ڻǱȽȽ
-                }
-            }
-        }
-
-        // ȫɨʹһֻ Line Scanning ķ
-        // ֱӸ evaluateLine ߼
-        return scanAllLines(color);
-    }
-
-    private int scanAllLines(int color) {
-        int score = 0;
-        // 4
-        for (int i = 0; i < 4; i++) {
-            score += scanDirection(color, DX[i], DY[i]);
-        }
-        return score;
-    }
-
-    private int scanDirection(int color, int dx, int dy) {
-        int score = 0;
-        boolean[][] visited = new boolean[WIDTH][WIDTH]; // ظͬһ
-
-        for (int y = 0; y < WIDTH; y++) {
-            for (int x = 0; x < WIDTH; x++) {
-                if (visited[y][x]) continue;
-                if (grid[y*WIDTH+x] == color) {
-                    // ӣͳ
-                    int count = 0;
-                    int curX = x, curY = y;
-                    while(isValid(curX, curY) && grid[curY*WIDTH+curX] == color) {
-                        visited[curY][curX] = true;
-                        count++;
-                        curX += dx;
-                        curY += dy;
-                    }
-
-                    // ͳ˿λ
-                    int empty = 0;
-                    // ǰ (x - dx, y - dy)
-                    if (isValid(x - dx, y - dy) && grid[(y-dy)*WIDTH+(x-dx)] == EMPTY) empty++;
-                    //  (curX, curY)
-                    if (isValid(curX, curY) && grid[curY*WIDTH+curX] == EMPTY) empty++;
-
-                    // ݳȺͿλ (ǻӣӣ߼)
-                    // Connect6 ӳ AI ֻ
-                    if (count >= 6) score += SCORE_WIN;
-                    else if (count == 5) score += SCORE_FIVE;
-                    else if (count == 4) {
-                        if (empty == 2) score += SCORE_LIVE_4;
-                        else if (empty == 1) score += SCORE_DEAD_4;
-                    } else if (count == 3) {
-                        if (empty == 2) score += SCORE_LIVE_3;
-                        else if (empty == 1) score += SCORE_DEAD_3;
-                    } else if (count == 2) {
-                        if (empty == 2) score += SCORE_LIVE_2;
-                    }
-                }
-            }
-        }
-        return score;
-    }
-
-    // ڵ p ܲγɺ
-    private int evaluatePoint(int p, int color) {
-        int score = 0;
-        int x = p % WIDTH;
-        int y = p / WIDTH;
-
-        grid[p] = color; // 
-
-        //  4 
-        for(int d=0; d<4; d++) {
-            // 򵥵ľֲɨ裺ǰ55
-            // ͳ 6 Χڵ
-            score += evaluateLineAround(x, y, DX[d], DY[d], color);
-        }
-
-        grid[p] = EMPTY; // ԭ
-        return score;
-    }
-
-    //  (x,y) ĳϣ (x,y) Ӻļֵ
-    private int evaluateLineAround(int x, int y, int dx, int dy, int color) {
-        // ǲ鿴 (x,y) гΪ 6 Ĵ
-        // ֻҪһͼӷ
-        int maxScore = 0;
-
-        // k Ǵڵʼƫ -5  0
-        for (int k = -5; k <= 0; k++) {
-            int cnt = 0;
-            int empty = 0;
-            boolean blocked = false;
-
-            // 鴰 [k, k+5]
-            for (int w = 0; w < 6; w++) {
-                int nx = x + (k + w) * dx;
-                int ny = y + (k + w) * dy;
-
-                if (!isValid(nx, ny)) { blocked = true; break; }
-
-                int val = grid[ny*WIDTH+nx];
-                if (val == color) cnt++;
-                else if (val == EMPTY) empty++;
-                else { blocked = true; break; }
-            }
-
-            if (!blocked) {
-                int currentScore = 0;
-                if (cnt == 6) currentScore = SCORE_WIN;
-                else if (cnt == 5) currentScore = SCORE_FIVE; // 5˵ԭ4
-                else if (cnt == 4) currentScore = SCORE_LIVE_4; // ǴԹƣδϸֻ/
-                else if (cnt == 3) currentScore = SCORE_LIVE_3;
-                else if (cnt == 2) currentScore = SCORE_LIVE_2;
-
-                if (currentScore > maxScore) maxScore = currentScore;
-            }
-        }
-        return maxScore;
-    }
-
-    // ---  ---
-
-    private boolean isValid(int x, int y) {
-        return x >= 0 && x < WIDTH && y >= 0 && y < WIDTH;
-    }
-
-    private void applyMove(MyMove m, int color) {
-        if (m.p1 != -1) grid[m.p1] = color;
-        if (m.p2 != -1) grid[m.p2] = color;
-    }
-
-    private void undoMove(MyMove m) {
-        if (m.p1 != -1) grid[m.p1] = EMPTY;
-        if (m.p2 != -1) grid[m.p2] = EMPTY;
+    public AI() {
+        this(EngineParams.forEngine("G99"));
     }
 
-    private int getBestNeighbor(int idx) {
-        int x = idx % WIDTH, y = idx / WIDTH;
-        for(int dy=-1; dy<=1; dy++) {
-            for(int dx=-1; dx<=1; dx++) {
-                if(dx==0 && dy==0) continue;
-                if (isValid(x+dx, y+dy) && grid[(y+dy)*WIDTH+(x+dx)] == EMPTY)
-                    return (y+dy)*WIDTH+(x+dx);
-            }
-        }
-        return getAnyEmpty();
+    public AI(EngineParams params) {
+        // ɵ G99.Candidates ȻЧCandidateTopK 
+        super(params, patternEvaluator(),
+                MAX_DEPTH, 0, topK(params), pairs(topK(params)));
     }
 
-    private int getAnyEmpty() {
-        for(int i=0; i<SIZE; i++) if (grid[i] == EMPTY) return i;
-        return 0;
+    //  Engine ͬȴѡضϵ MaxMoves 
+    private static int topK(EngineParams params) {
+        return params.getInt("CandidateTopK", params.getInt("Candidates", SEARCH_CANDIDATES));
     }
 
-    private static class MyMove {
-        int p1, p2;
-        MyMove(int p1, int p2) { this.p1 = p1; this.p2 = p2; }
-        Move toMove() {
-            if (p2 == -1) return new Move(p1, -1); // ʹ -1 ΪЧλ
-            return new Move(p1, p2);
-        }
+    /** ͹ֵѶ weights.properties е g99.*WeightTuner ȡʼȨ */
+    public static PatternEvaluator patternEvaluator() {
+        return new PatternEvaluator(new int[]{SCORE_WIN, SCORE_LIVE_5, SCORE_DEAD_5, SCORE_LIVE_4,
+                SCORE_DEAD_4, SCORE_LIVE_3, SCORE_DEAD_3, SCORE_LIVE_2}, DEFENCE);
     }
 
-    private static class PointScore implements Comparable<PointScore> {
-        int idx, score;
-        PointScore(int i, int s) { idx = i; score = s; }
-        @Override
-        public int compareTo(PointScore o) { return o.score - this.score; } // 
+    // ѡϵĸض
+    private static int pairs(int k) {
+        return k * (k - 1) / 2;
     }
-}
\ No newline at end of file
+}
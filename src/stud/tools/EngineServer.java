@@ -0,0 +1,217 @@
+package stud.tools;
+
+import core.game.Move;
+import core.game.ui.Configuration;
+import core.player.Player;
+import stud.core.AlphaBetaSearcher;
+import stud.core.Engine;
+import stud.core.Moves;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 常驻的引擎服务：一个 JVM 里加载一次引擎，用文本行协议反复驱动，省掉每场比赛启动 JVM、
+ * 类加载和 JIT 预热的成本，第一步的用时也不再被冷 JIT 扭曲。
+ *
+ * 协议（UTF-8 文本行，空格分隔）：
+ * <pre>
+ * 客户端 → engine 棋手           棋手写法同 Farm（类名或“类名:参数=值,...”），同一写法的引擎只创建一次
+ * 服务端 → ok 名字
+ * 客户端 → newgame               清空棋盘和各张表
+ * 服务端 → ok
+ * 客户端 → position [着法...]    从开局起的全部着法，每手四个字母（如 JJKJ），白方先走
+ * 服务端 → ok
+ * 客户端 → go [毫秒]             在当前局面上思考，不给时限时用引擎的 MoveTimeMs；不落子
+ * 服务端 → bestmove 着法 time 毫秒 nodes 节点数     （思考结束时）
+ * 客户端 → analyse N [毫秒]      多主变分析：当前局面最好的 N 手，各带精确分数和主变；不落子
+ * 服务端 → line 名次 着法 score 分数 depth 深度 pv 着法...   （每手一行，按分数从高到低）
+ *          done time 毫秒 nodes 节点数
+ * 客户端 → stop                  让正在进行的 go / analyse 马上给出目前的结果
+ * 客户端 → isready               服务端 → readyok
+ * 客户端 → quit
+ * </pre>
+ * 出错时回 “error 原因”；思考期间只接受 stop、isready 和 quit。
+ *
+ * 用法：java stud.tools.EngineServer            （标准输入输出）
+ *      java stud.tools.EngineServer -port P    （监听本机端口，一次服务一个连接，引擎在连接之间保留）
+ */
+public class EngineServer {
+
+    private final Map<String, Engine> engines = new HashMap<>();
+    private Engine engine;
+    private List<Move> position = new ArrayList<>();
+    private Thread thinking;
+    private PrintWriter out;
+
+    public static void main(String[] args) throws IOException {
+        Configuration.GUI = false;
+        EngineServer server = new EngineServer();
+        if (args.length >= 2 && args[0].equals("-port")) {
+            try (ServerSocket ss = new ServerSocket(Integer.parseInt(args[1]), 1, InetAddress.getLoopbackAddress())) {
+                System.out.println("engine server listening on port " + ss.getLocalPort());
+                while (true) {
+                    try (Socket s = ss.accept()) {
+                        if (!server.serve(s.getInputStream(), s.getOutputStream())) return;
+                    }
+                }
+            }
+        }
+        server.serve(System.in, System.out);
+    }
+
+    /** 处理一个会话直到 quit（返回 false）或输入结束（返回 true） */
+    public boolean serve(InputStream input, OutputStream output) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        out = new PrintWriter(output, true, StandardCharsets.UTF_8);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = line.trim().split("\\s+");
+                if (f[0].isEmpty()) continue;
+                if (f[0].equals("quit")) return false;
+                try {
+                    handle(f);
+                } catch (RuntimeException e) {
+                    reply("error " + e.getMessage());
+                }
+            }
+            return true;
+        } finally {
+            stopThinking();
+        }
+    }
+
+    private void handle(String[] f) {
+        switch (f[0]) {
+            case "isready":
+                reply("readyok");
+                return;
+            case "stop":
+                if (busy()) engine.stop();
+                return;
+            default:
+                break;
+        }
+        if (busy()) throw new IllegalStateException("busy");
+        switch (f[0]) {
+            case "engine":
+                if (f.length < 2) throw new IllegalArgumentException("usage: engine <player>");
+                engine = engines.computeIfAbsent(f[1], EngineServer::newEngine);
+                position = new ArrayList<>();
+                reply("ok " + engine.name());
+                return;
+            case "newgame":
+                requireEngine().newGame();
+                position = new ArrayList<>();
+                reply("ok");
+                return;
+            case "position":
+                position = parsePosition(f);
+                reply("ok");
+                return;
+            case "go":
+                go(f.length > 1 ? Long.parseLong(f[1]) : 0);
+                return;
+            case "analyse":
+                if (f.length < 2) throw new IllegalArgumentException("usage: analyse <lines> [ms]");
+                analyse(Integer.parseInt(f[1]), f.length > 2 ? Long.parseLong(f[2]) : 0);
+                return;
+            default:
+                throw new IllegalArgumentException("unknown command " + f[0]);
+        }
+    }
+
+    /** 在后台线程里思考，读命令的线程继续处理 stop */
+    private void go(long millis) {
+        Engine e = requireEngine();
+        List<Move> moves = position;
+        e.prepare();
+        thinking = new Thread(() -> {
+            long nodes = e.stats().nodes(), start = System.nanoTime();
+            Move m = e.go(moves, millis);
+            reply("bestmove " + m + " time " + (System.nanoTime() - start) / 1_000_000
+                    + " nodes " + (e.stats().nodes() - nodes));
+        }, "engine-server-go");
+        thinking.setDaemon(true);
+        thinking.start();
+    }
+
+    /** 和 go 一样在后台线程里做多主变分析 */
+    private void analyse(int count, long millis) {
+        Engine e = requireEngine();
+        List<Move> moves = position;
+        e.prepare();
+        thinking = new Thread(() -> {
+            long nodes = e.stats().nodes(), start = System.nanoTime();
+            List<AlphaBetaSearcher.RootLine> lines = e.findBestMoves(moves, count, millis);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lines.size(); i++) {
+                AlphaBetaSearcher.RootLine l = lines.get(i);
+                sb.append("line ").append(i + 1).append(' ').append(Moves.toString(l.move))
+                        .append(" score ").append(l.value).append(" depth ").append(l.depth).append(" pv");
+                for (int m : l.pv) sb.append(' ').append(Moves.toString(m));
+                sb.append('\n');
+            }
+            reply(sb + "done time " + (System.nanoTime() - start) / 1_000_000
+                    + " nodes " + (e.stats().nodes() - nodes));
+        }, "engine-server-analyse");
+        thinking.setDaemon(true);
+        thinking.start();
+    }
+
+    /** 着法逐个检查合法性，不合法的整条局面作废 */
+    private static List<Move> parsePosition(String[] f) {
+        core.board.Board check = new core.board.Board();
+        List<Move> moves = new ArrayList<>();
+        for (int i = 1; i < f.length; i++) {
+            Move m = f[i].length() == 4 ? Move.parseMove(f[i]) : null;
+            if (m == null || !check.legalMove(m)) throw new IllegalArgumentException("illegal move " + f[i]);
+            check.makeMove(m);
+            moves.add(m);
+        }
+        return moves;
+    }
+
+    private static Engine newEngine(String spec) {
+        Player p = FarmWorker.newPlayer(spec);
+        if (!(p instanceof Engine)) throw new IllegalArgumentException(spec + " is not a stud engine");
+        ((Engine) p).warmUp();
+        return (Engine) p;
+    }
+
+    private Engine requireEngine() {
+        if (engine == null) throw new IllegalStateException("no engine selected");
+        return engine;
+    }
+
+    private boolean busy() {
+        return thinking != null && thinking.isAlive();
+    }
+
+    private void stopThinking() {
+        if (!busy()) return;
+        engine.stop();
+        try {
+            thinking.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void reply(String line) {
+        out.println(line);
+    }
+}
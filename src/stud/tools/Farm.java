@@ -0,0 +1,347 @@
+package stud.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多进程对局农场的协调端：把一场循环赛的对局表分给多个工作进程（FarmWorker）去下，收齐结果后汇总成一份报告。
+ *
+ * 单个 JVM 受一个堆和框架静态 Configuration 的限制，一个进程里只能同时下有限的几局；
+ * 这里每个工作进程是独立的 JVM，可以在本机由协调端直接启动，也可以在别的机器上手动启动后连过来。
+ * 双方用本地 TCP 套接字上的文本行通信（见 FarmWorker）。
+ *
+ * 分派用工作窃取：对局表按对阵分块发到各个分片上，每个工作进程认领一个分片，从头上取自己的对局；
+ * 自己的分片空了就从剩得最多的分片尾部偷一局。晚连上来、没有分片的工作进程只偷不领。
+ * 工作进程断线时，它手上那一局放回原分片重下。还有对局没下完、却已经没有工作进程连着时：
+ * 本机的工作进程也都退出了就报错结束，免得一直空等；只用远程工作进程时打印提示，继续等它们重新连上来。
+ *
+ * 结束后打印对阵表和积分表（胜 1 分、和 0.5 分），结果追加到结果库（ResultStore），
+ * 给了 -records 时再把全部棋谱写进棋谱文件。
+ *
+ * 用法：java stud.tools.Farm [-workers N] [-port P] [-records 文件] [-event 名称] &lt;每对局数&gt; &lt;棋手&gt;...
+ * （-workers 为在本机启动的工作进程数，默认 CPU 核数；0 表示只等远程工作进程连接，这时 -port 要固定）
+ * 棋手写类名，可以带参数覆盖，例如 stud.g09.AI:CandidateTopK=20,SearchDepth=3。
+ * 远程工作进程：java stud.tools.FarmWorker &lt;协调端主机&gt; &lt;端口&gt;
+ */
+public class Farm {
+
+    /** 一局：编号、先手、后手，attempts 为已经发出去的次数 */
+    static final class Job {
+        final int id;
+        final String first, second;
+        int shard, attempts;
+
+        Job(int id, String first, String second) {
+            this.id = id;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final List<Job> jobs = new ArrayList<>();
+    private final List<Deque<Job>> shards = new ArrayList<>();
+    private final GameRecord[] results;
+    // 各引擎的用时统计：步数、用时、节点、p50 按步数加权之和、最差 p99、max、看门狗超时
+    private final Map<String, long[]> engines = new LinkedHashMap<>();
+    private final Map<String, Integer> perWorker = new LinkedHashMap<>();
+    private int claimed;
+    private int connected;                   // 当前连着的工作进程数
+    private int done;
+    private int failed;
+    private int steals;
+
+    /** players 两两对阵，每对下 gamesPerPair 局，先后手轮换；对局表分成 shardCount 个分片 */
+    public Farm(List<String> players, int gamesPerPair, int shardCount) {
+        for (int i = 0; i < players.size(); i++) {
+            for (int j = i + 1; j < players.size(); j++) {
+                for (int g = 0; g < gamesPerPair; g++) {
+                    boolean swap = g % 2 == 1;
+                    jobs.add(new Job(jobs.size(), swap ? players.get(j) : players.get(i),
+                            swap ? players.get(i) : players.get(j)));
+                }
+            }
+        }
+        int n = Math.max(1, shardCount);
+        for (int i = 0; i < n; i++) shards.add(new ArrayDeque<>());
+        // 连续的一段对局放进同一个分片：同一对棋手在同一个 JVM 里下，类加载和 JIT 的成本只付一次
+        for (Job job : jobs) {
+            job.shard = (int) ((long) job.id * n / jobs.size());
+            shards.get(job.shard).addLast(job);
+        }
+        results = new GameRecord[jobs.size()];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int workers = Runtime.getRuntime().availableProcessors();
+        int port = 0;
+        String records = null, event = "Farm";
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i += 2) {
+            switch (args[i]) {
+                case "-workers": workers = Integer.parseInt(args[i + 1]); break;
+                case "-port": port = Integer.parseInt(args[i + 1]); break;
+                case "-records": records = args[i + 1]; break;
+                case "-event": event = args[i + 1]; break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (args.length - i < 3) {
+            System.out.println("usage: Farm [-workers N] [-port P] [-records file] [-event name] <gamesPerPair> <player> <player>...");
+            return;
+        }
+        int gamesPerPair = Integer.parseInt(args[i]);
+        List<String> players = new ArrayList<>();
+        for (int k = i + 1; k < args.length; k++) players.add(args[k]);
+
+        Farm farm = new Farm(players, gamesPerPair, workers);
+        long t0 = System.nanoTime();
+        farm.run(port, workers);
+        System.out.printf("%d games in %.1fs%n", farm.done, (System.nanoTime() - t0) / 1e9);
+        farm.report(players);
+
+        List<GameRecord> played = farm.played();
+        new ResultStore(Paths.get(ResultStore.DEFAULT_FILE)).record(event, played, farm.engineRows());
+        if (records != null) {
+            try (GameRecordWriter out = new GameRecordWriter(Paths.get(records))) {
+                for (GameRecord r : played) out.write(r);
+            }
+        }
+    }
+
+    /** 在 port（0 表示任选）上等工作进程连接，并在本机启动 localWorkers 个；全部对局结束后返回 */
+    public void run(int port, int localWorkers) throws IOException, InterruptedException {
+        // 监听所有网卡，别的机器上的工作进程也能连进来
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.println("farm listening on port " + server.getLocalPort() + ", " + jobs.size() + " games");
+            List<Process> local = new ArrayList<>();
+            for (int k = 0; k < localWorkers; k++) local.add(startWorker(server.getLocalPort()));
+
+            Thread acceptor = new Thread(() -> accept(server), "farm-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            synchronized (this) {
+                boolean warned = false;
+                while (done + failed < jobs.size()) {
+                    if (connected > 0 || local.stream().anyMatch(Process::isAlive)) {
+                        warned = false;
+                    } else if (!local.isEmpty()) {
+                        int left = jobs.size() - done - failed;
+                        throw new IOException(perWorker.isEmpty() ? "all local workers exited before connecting"
+                                : "all workers exited with " + left + " games left");
+                    } else if (!perWorker.isEmpty() && !warned) {
+                        System.err.println("no worker connected, " + (jobs.size() - done - failed)
+                                + " games left; waiting on port " + server.getLocalPort());
+                        warned = true;
+                    }
+                    wait(1000);
+                }
+            }
+            for (Process p : local) {
+                if (!p.waitFor(5, java.util.concurrent.TimeUnit.SECONDS)) p.destroy();
+            }
+        }
+    }
+
+    /** 用当前 JVM 的 java 和类路径启动一个本地工作进程 */
+    private static Process startWorker(int port) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                FarmWorker.class.getName(), "127.0.0.1", String.valueOf(port))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket s = server.accept();
+                Thread t = new Thread(() -> serve(s), "farm-worker");
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                return;   // 关闭了
+            }
+        }
+    }
+
+    /** 和一个工作进程对话：发一局、收一个结果，直到没有对局可发 */
+    private void serve(Socket socket) {
+        int shard;
+        String name;
+        Job current = null;
+        boolean counted = false;
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            String hello = in.readLine();
+            if (hello == null || !hello.startsWith("HELLO\t")) return;
+            synchronized (this) {
+                shard = claimed < shards.size() ? claimed++ : -1;
+                name = hello.substring(6) + "@" + s.getInetAddress().getHostAddress();
+                perWorker.putIfAbsent(name, 0);
+                connected++;
+                counted = true;
+            }
+            while ((current = next(shard)) != null) {
+                out.println("GAME\t" + current.id + "\t" + current.first + "\t" + current.second);
+                String line = in.readLine();
+                if (line == null) break;
+                finish(current, line, in, name);
+                current = null;
+            }
+            out.println("BYE");
+        } catch (IOException e) {
+            System.err.println("worker lost: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (current != null) retry(current);
+            if (counted) disconnected();
+        }
+    }
+
+    private synchronized void disconnected() {
+        connected--;
+        notifyAll();
+    }
+
+    /**
+     * 先取自己分片的头，空了再从最长的分片尾部偷。都空了但别的工作进程还有对局在下时先等着，
+     * 那几局可能断线放回来；全部结束返回 null。
+     */
+    private synchronized Job next(int shard) throws InterruptedException {
+        while (true) {
+            Job job = shard >= 0 ? shards.get(shard).pollFirst() : null;
+            if (job == null) {
+                Deque<Job> victim = null;
+                for (Deque<Job> d : shards) if (!d.isEmpty() && (victim == null || d.size() > victim.size())) victim = d;
+                if (victim != null) {
+                    job = victim.pollLast();
+                    steals++;
+                }
+            }
+            if (job != null) {
+                job.attempts++;
+                return job;
+            }
+            if (done + failed == jobs.size()) return null;
+            wait();
+        }
+    }
+
+    /** 断线或下失败的对局放回原分片；已经试了 MAX_ATTEMPTS 次的算作失败 */
+    private synchronized void retry(Job job) {
+        if (job.attempts >= MAX_ATTEMPTS) {
+            failed++;
+            System.err.println("giving up game " + job.id + " (" + job.first + " vs " + job.second + ")");
+        } else {
+            shards.get(job.shard).addFirst(job);
+        }
+        notifyAll();
+    }
+
+    /** 处理工作进程对 job 的回答：RESULT 行之后跟着若干 ENGINE 行，以 END 结束；FAILED 行表示这局没下成 */
+    private void finish(Job job, String line, BufferedReader in, String worker) throws IOException {
+        String[] f = line.split("\t", -1);
+        if (f[0].equals("FAILED")) {
+            System.err.println("game " + job.id + " failed on " + worker + ": " + (f.length > 2 ? f[2] : ""));
+            retry(job);
+            return;
+        }
+        if (!f[0].equals("RESULT") || Integer.parseInt(f[1]) != job.id) throw new IOException("unexpected reply: " + line);
+        GameRecord r = FarmWorker.parseResult(f);
+        List<String[]> stats = new ArrayList<>();
+        String s;
+        while ((s = in.readLine()) != null && !s.equals("END")) {
+            if (s.startsWith("ENGINE\t")) stats.add(s.split("\t"));
+        }
+        if (s == null) throw new IOException("connection closed while reading result of game " + job.id);
+        synchronized (this) {
+            results[job.id] = r;
+            for (String[] e : stats) {
+                long[] t = engines.computeIfAbsent(e[1], k -> new long[7]);
+                long moves = Long.parseLong(e[2]);
+                t[0] += moves;
+                t[1] += Long.parseLong(e[3]);
+                t[2] += Long.parseLong(e[4]);
+                t[3] += moves * Long.parseLong(e[5]);
+                t[4] = Math.max(t[4], Long.parseLong(e[6]));
+                t[5] = Math.max(t[5], Long.parseLong(e[7]));
+                t[6] += Long.parseLong(e[8]);
+            }
+            perWorker.merge(worker, 1, Integer::sum);
+            done++;
+            if (done % 10 == 0) System.out.println(done + "/" + jobs.size() + " games");
+            notifyAll();
+        }
+    }
+
+    /** 汇总后的用时统计，每个引擎一行：名字、步数、用时、节点、p50（各局按步数加权平均）、最差 p99、max、超时 */
+    public synchronized List<String[]> engineRows() {
+        List<String[]> rows = new ArrayList<>();
+        engines.forEach((name, t) -> rows.add(new String[]{name, String.valueOf(t[0]), String.valueOf(t[1]),
+                String.valueOf(t[2]), String.valueOf(t[0] == 0 ? 0 : t[3] / t[0]), String.valueOf(t[4]),
+                String.valueOf(t[5]), String.valueOf(t[6])}));
+        return rows;
+    }
+
+    /** 已完成的对局，按对局表顺序 */
+    public synchronized List<GameRecord> played() {
+        List<GameRecord> out = new ArrayList<>();
+        for (GameRecord r : results) if (r != null) out.add(r);
+        return out;
+    }
+
+    /** 对阵表、积分表和各工作进程下的局数 */
+    public synchronized void report(List<String> players) {
+        int n = players.size();
+        int[][] wins = new int[n][n];
+        int[][] draws = new int[n][n];
+        for (Job job : jobs) {
+            GameRecord r = results[job.id];
+            if (r == null) continue;
+            int a = players.indexOf(job.first), b = players.indexOf(job.second);
+            if (r.getResult() == GameRecord.FIRST_WIN) wins[a][b]++;
+            else if (r.getResult() == GameRecord.SECOND_WIN) wins[b][a]++;
+            else draws[Math.min(a, b)][Math.max(a, b)]++;
+        }
+        System.out.println();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                System.out.printf("%-30s %4d - %-4d %-30s draws %d%n", players.get(i), wins[i][j], wins[j][i],
+                        players.get(j), draws[i][j]);
+            }
+        }
+        System.out.println();
+        System.out.printf("%-30s %6s %8s%n", "player", "games", "points");
+        for (int i = 0; i < n; i++) {
+            int games = 0;
+            double points = 0;
+            for (int j = 0; j < n; j++) {
+                if (i == j) continue;
+                int d = draws[Math.min(i, j)][Math.max(i, j)];
+                games += wins[i][j] + wins[j][i] + d;
+                points += wins[i][j] + d / 2.0;
+            }
+            System.out.printf("%-30s %6d %8.1f%n", players.get(i), games, points);
+        }
+        System.out.println();
+        perWorker.forEach((w, g) -> System.out.printf("worker %-24s %d games%n", w, g));
+        System.out.printf("%d steals, %d failed%n", steals, failed);
+    }
+}
@@ -0,0 +1,123 @@
+package stud.tools;
+
+import core.game.ui.Configuration;
+import core.player.Player;
+import stud.core.Engine;
+import stud.core.EngineParams;
+import stud.core.EngineStats;
+import stud.core.Instrumented;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 对局农场的工作进程：连上协调端（Farm），一局一局地要对局来下，把结果发回去。
+ *
+ * 协议是 UTF-8 文本行，字段用 tab 分隔：
+ * <pre>
+ * 工作进程 → HELLO  名字
+ * 协调端   → GAME   编号  先手  后手        （棋手写法见 Farm）
+ * 工作进程 → RESULT 编号  结果  结束原因  步数  先手名  后手名  格子(逗号分隔)
+ *           ENGINE 名字  步数  用时(ns)  节点  p50(ns)  p99(ns)  max(ns)  超时次数   （每个引擎一行）
+ *           END
+ *        或 FAILED 编号  原因
+ * 协调端   → BYE                              （没有对局了，工作进程退出）
+ * </pre>
+ * 每局都用新的棋手实例，一个工作进程同一时间只下一局。
+ *
+ * 用法：java stud.tools.FarmWorker &lt;协调端主机&gt; &lt;端口&gt;
+ */
+public class FarmWorker {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: FarmWorker <host> <port>");
+            return;
+        }
+        Configuration.GUI = false;
+        String name = InetAddress.getLocalHost().getHostName() + "-" + ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+        try (Socket s = new Socket(args[0], Integer.parseInt(args[1]));
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            out.println("HELLO\t" + name);
+            String line;
+            while ((line = in.readLine()) != null && line.startsWith("GAME\t")) {
+                String[] f = line.split("\t");
+                out.print(play(f[1], f[2], f[3]));
+                out.flush();
+            }
+        }
+    }
+
+    /** 下一局，返回要发回协调端的几行 */
+    static String play(String id, String first, String second) {
+        try {
+            Player a = newPlayer(first), b = newPlayer(second);
+            GameRecord r = GameRecord.of(SelfPlay.play(a, b));
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.join("\t", "RESULT", id, String.valueOf(r.getResult()), String.valueOf(r.getEndReason()),
+                    String.valueOf(r.getSteps()), clean(r.getFirst()), clean(r.getSecond()), cells(r))).append('\n');
+            for (Player p : new Player[]{a, b}) {
+                if (!(p instanceof Instrumented)) continue;
+                EngineStats st = ((Instrumented) p).stats();
+                sb.append(String.join("\t", "ENGINE", clean(p.name()), String.valueOf(st.moves()),
+                        String.valueOf(st.nanos()), String.valueOf(st.nodes()), String.valueOf(st.percentile(0.5)),
+                        String.valueOf(st.percentile(0.99)), String.valueOf(st.maxNanos()),
+                        String.valueOf(st.timeouts()))).append('\n');
+            }
+            return sb.append("END\n").toString();
+        } catch (RuntimeException e) {
+            return "FAILED\t" + id + "\t" + clean(String.valueOf(e)) + "\n";
+        }
+    }
+
+    /**
+     * 按写法创建棋手：类名，或者“类名:参数=值,参数=值”。
+     * 带参数的要求类有 (EngineParams) 构造函数，参数覆盖在它默认参数之上，覆盖串同时作为名字里的标签。
+     */
+    static Player newPlayer(String spec) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) return SelfPlay.newPlayer(spec);
+        String className = spec.substring(0, colon);
+        Engine proto = (Engine) SelfPlay.newPlayer(className);
+        EngineParams p = proto.params().copy().label(spec.substring(colon + 1));
+        for (String kv : spec.substring(colon + 1).split(",")) {
+            String[] x = kv.split("=", 2);
+            p.set(x[0], x[1]);
+        }
+        try {
+            return (Player) Class.forName(className).getDeclaredConstructor(EngineParams.class).newInstance(p);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(className + " has no (EngineParams) constructor", e);
+        }
+    }
+
+    /** 协调端解析 RESULT 行 */
+    static GameRecord parseResult(String[] f) {
+        String[] parts = f[7].isEmpty() ? new String[0] : f[7].split(",");
+        int[] cells = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) cells[i] = Integer.parseInt(parts[i]);
+        return new GameRecord(f[5], f[6], Integer.parseInt(f[2]), f[3].charAt(0), Integer.parseInt(f[4]), cells);
+    }
+
+    private static String cells(GameRecord r) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < r.moveCount(); i++) {
+            for (int k = 0; k < 2; k++) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(r.cell(i, k));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String clean(String s) {
+        return s.replace('\t', ' ').replace('\n', ' ');
+    }
+}
@@ -0,0 +1,123 @@
+package stud.tools;
+
+import core.game.GameResult;
+import core.game.Move;
+import core.player.Player;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一局棋的紧凑记录：双方名字、结果、结束原因、步数和着法序列。
+ * 着法以格子下标 (0~360) 保存，每步两个子，写盘时按 9 bit 打包。
+ */
+public class GameRecord {
+
+    public static final int DRAW = 0;
+    public static final int FIRST_WIN = 1;
+    public static final int SECOND_WIN = 2;
+
+    /** 9 bit 能表示的最大值，用作"没有第二子"的占位 */
+    public static final int NO_CELL = 511;
+
+    // 文件头："C6GR" + 版本号(u16) + 保留(u16)
+    static final int MAGIC = 0x43364752;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    private final String first;
+    private final String second;
+    private final int result;
+    private final char endReason;
+    private final int steps;
+    private final int[] cells;
+
+    public GameRecord(String first, String second, int result, char endReason, int steps, int[] cells) {
+        if (cells.length % 2 != 0) throw new IllegalArgumentException("cells must come in pairs");
+        this.first = first;
+        this.second = second;
+        this.result = result;
+        this.endReason = endReason;
+        this.steps = steps;
+        this.cells = cells;
+    }
+
+    /**
+     * 从框架的 GameResult 构造记录。
+     * GameResult 没有公开着法列表和结束原因，只能通过反射读取私有字段。
+     */
+    public static GameRecord of(GameResult gr) {
+        Player first = gr.getFirst();
+        Player second = gr.getSecond();
+        List<Move> moves = readField(gr, "moves");
+        String reason = readField(gr, "endReason");
+        Integer steps = readField(gr, "steps");
+
+        // 与 Referee.getWinner 一致：超步数判和，否则轮到谁下谁输。
+        // 不用名字判断胜负，自己和自己下时两边同名。
+        int result;
+        if ("M".equalsIgnoreCase(reason)) result = DRAW;
+        else result = (moves.size() % 2 == 0) ? SECOND_WIN : FIRST_WIN;
+
+        int[] cells = new int[moves.size() * 2];
+        for (int i = 0; i < moves.size(); i++) {
+            cells[2 * i] = toCell(moves.get(i).index1());
+            cells[2 * i + 1] = toCell(moves.get(i).index2());
+        }
+        char end = (reason == null || reason.isEmpty()) ? '?' : reason.charAt(0);
+        return new GameRecord(first.name(), second.name(), result, end, steps, cells);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T readField(GameResult gr, String name) {
+        try {
+            Field f = GameResult.class.getDeclaredField(name);
+            f.setAccessible(true);
+            return (T) f.get(gr);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot read GameResult." + name, e);
+        }
+    }
+
+    private static int toCell(int index) {
+        return Move.validSquare(index) ? index : NO_CELL;
+    }
+
+    public String getFirst() { return first; }
+    public String getSecond() { return second; }
+    public int getResult() { return result; }
+    public char getEndReason() { return endReason; }
+    public int getSteps() { return steps; }
+
+    public int moveCount() { return cells.length / 2; }
+
+    /** 第 i 步的第 k (0/1) 个子，NO_CELL 表示没有 */
+    public int cell(int i, int k) { return cells[2 * i + k]; }
+
+    int[] cells() { return cells; }
+
+    public Move move(int i) {
+        int a = cells[2 * i], b = cells[2 * i + 1];
+        return new Move(a, b == NO_CELL ? a : b);
+    }
+
+    public List<Move> moves() {
+        List<Move> list = new ArrayList<>(moveCount());
+        for (int i = 0; i < moveCount(); i++) list.add(move(i));
+        return list;
+    }
+
+    /** 返回胜者名字，和棋返回 "NONE"，与 GameResult 保持一致 */
+    public String winner() {
+        if (result == FIRST_WIN) return first;
+        if (result == SECOND_WIN) return second;
+        return "NONE";
+    }
+
+    @Override
+    public String toString() {
+        return first + " vs " + second + ", winner=" + winner() + ", steps=" + steps
+                + ", end=" + endReason + ", moves=" + moveCount();
+    }
+}
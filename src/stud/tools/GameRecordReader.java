@@ -0,0 +1,155 @@
+package stud.tools;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 棋谱流式读取器：每次只在缓冲区里保留少量记录，可以顺序遍历上百万局而不占用大量内存。
+ *
+ * <pre>
+ * try (GameRecordReader in = new GameRecordReader(path)) {
+ *     for (GameRecord r : in) { ... }
+ * }
+ * </pre>
+ */
+public class GameRecordReader implements Closeable, Iterable<GameRecord> {
+
+    private static final int BUFFER_SIZE = 1 << 17;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean eof = false;
+
+    public GameRecordReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        checkHeader(channel);
+        channel.position(GameRecord.HEADER_BYTES);
+        buffer.limit(0);
+    }
+
+    /** 校验文件头，不匹配时抛出 IOException */
+    static void checkHeader(FileChannel ch) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(GameRecord.HEADER_BYTES);
+        while (h.hasRemaining()) {
+            if (ch.read(h, h.position()) < 0) throw new IOException("not a game record file (truncated header)");
+        }
+        h.flip();
+        if (h.getInt() != GameRecord.MAGIC) throw new IOException("not a game record file (bad magic)");
+        int version = h.getShort() & 0xFFFF;
+        if (version != GameRecord.VERSION) throw new IOException("unsupported game record version " + version);
+    }
+
+    /**
+     * 读取下一局，文件结束返回 null。
+     */
+    public GameRecord next() throws IOException {
+        if (!ensure(2)) return null;
+        int length = buffer.getShort() & 0xFFFF;
+        if (!ensure(length)) throw new EOFException("truncated game record");
+
+        int result = buffer.get();
+        char endReason = (char) (buffer.get() & 0xFF);
+        int steps = buffer.getShort() & 0xFFFF;
+        String first = name();
+        String second = name();
+        int moves = buffer.getShort() & 0xFFFF;
+
+        int[] cells = new int[moves * 2];
+        int acc = 0, bits = 0;
+        for (int i = 0; i < cells.length; i++) {
+            while (bits < 9) {
+                acc = (acc << 8) | (buffer.get() & 0xFF);
+                bits += 8;
+            }
+            bits -= 9;
+            cells[i] = (acc >>> bits) & 0x1FF;
+            acc &= (1 << bits) - 1;
+        }
+        // 末尾不足一个格子的补齐 bit 直接丢弃
+        return new GameRecord(first, second, result, endReason, steps, cells);
+    }
+
+    private String name() {
+        int n = buffer.get() & 0xFF;
+        byte[] b = new byte[n];
+        buffer.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /** 保证缓冲区里至少还有 n 个字节；文件在记录边界结束时返回 false */
+    private boolean ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) return true;
+        buffer.compact();
+        while (!eof && buffer.position() < n) {
+            if (channel.read(buffer) < 0) eof = true;
+        }
+        buffer.flip();
+        if (buffer.remaining() >= n) return true;
+        if (buffer.remaining() == 0) return false;
+        throw new EOFException("truncated game record");
+    }
+
+    @Override
+    public Iterator<GameRecord> iterator() {
+        return new Iterator<GameRecord>() {
+            private GameRecord next = advance();
+
+            private GameRecord advance() {
+                try {
+                    return GameRecordReader.this.next();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public GameRecord next() {
+                if (next == null) throw new NoSuchElementException();
+                GameRecord r = next;
+                next = advance();
+                return r;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 统计棋谱文件：java stud.tools.GameRecordReader games.c6g
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: GameRecordReader <file>");
+            return;
+        }
+        long games = 0, firstWins = 0, secondWins = 0, draws = 0, moves = 0;
+        try (GameRecordReader in = new GameRecordReader(Paths.get(args[0]))) {
+            for (GameRecord r : in) {
+                games++;
+                moves += r.moveCount();
+                if (r.getResult() == GameRecord.FIRST_WIN) firstWins++;
+                else if (r.getResult() == GameRecord.SECOND_WIN) secondWins++;
+                else draws++;
+            }
+        }
+        System.out.printf("games=%d firstWins=%d secondWins=%d draws=%d avgMoves=%.1f%n",
+                games, firstWins, secondWins, draws, games == 0 ? 0.0 : (double) moves / games);
+    }
+}
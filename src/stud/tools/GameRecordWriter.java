@@ -0,0 +1,100 @@
+package stud.tools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 棋谱写入器：以追加方式把 GameRecord 写入二进制棋谱文件。
+ *
+ * 单条记录格式 (大端)：
+ * <pre>
+ * u16 长度(不含本字段) | u8 结果 | u8 结束原因 | u16 步数
+ * u8 先手名长度 | 先手名(UTF-8) | u8 后手名长度 | 后手名(UTF-8)
+ * u16 着法数 | 着法数*2 个 9 bit 格子下标，按字节补齐
+ * </pre>
+ * 记录先写进缓冲区，缓冲区满或 flush/close 时才落盘。
+ */
+public class GameRecordWriter implements Closeable {
+
+    // 至少放得下一条最长的记录（0xFFFF 字节加 2 字节长度）
+    private static final int BUFFER_SIZE = (1 << 16) + 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long written = 0;
+
+    public GameRecordWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            buffer.putInt(GameRecord.MAGIC).putShort((short) GameRecord.VERSION).putShort((short) 0);
+        } else {
+            GameRecordReader.checkHeader(channel);
+            channel.position(size);
+        }
+    }
+
+    public void write(GameRecord r) throws IOException {
+        byte[] first = name(r.getFirst());
+        byte[] second = name(r.getSecond());
+        int[] cells = r.cells();
+        int packed = (cells.length * 9 + 7) / 8;
+        int length = 1 + 1 + 2 + 1 + first.length + 1 + second.length + 2 + packed;
+        if (length > 0xFFFF) throw new IOException("record too long: " + length);
+
+        if (buffer.remaining() < length + 2) flush();
+
+        buffer.putShort((short) length);
+        buffer.put((byte) r.getResult());
+        buffer.put((byte) r.getEndReason());
+        buffer.putShort((short) r.getSteps());
+        buffer.put((byte) first.length).put(first);
+        buffer.put((byte) second.length).put(second);
+        buffer.putShort((short) (cells.length / 2));
+
+        // 9 bit 打包：攒够 8 bit 就输出一个字节
+        int acc = 0, bits = 0;
+        for (int c : cells) {
+            acc = (acc << 9) | (c & 0x1FF);
+            bits += 9;
+            while (bits >= 8) {
+                bits -= 8;
+                buffer.put((byte) (acc >>> bits));
+            }
+            acc &= (1 << bits) - 1;
+        }
+        if (bits > 0) buffer.put((byte) (acc << (8 - bits)));
+        written++;
+    }
+
+    private static byte[] name(String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > 255) throw new IllegalArgumentException("player name too long: " + s);
+        return b;
+    }
+
+    /** 本写入器写出的记录数 */
+    public long written() {
+        return written;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
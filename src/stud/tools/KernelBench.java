@@ -0,0 +1,153 @@
+package stud.tools;
+
+import stud.core.EngineBoard;
+import stud.core.FastBoard;
+import stud.core.LineKernel;
+import stud.core.PairMoveGenerator;
+import stud.core.PatternEvaluator;
+import stud.g09.SmartAI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 窗口计数内核的基准和对照：在一批随机对局的局面上，
+ * <ul>
+ *   <li>核对 LineKernel 的 SWAR 版和标量版算出的窗口计数、威胁窗口数、成六数完全相同；</li>
+ *   <li>核对 FastBoard.load 整盘摆子与 reset 后逐子 put 得到的棋盘状态和估值相同
+ *       （再各走几手随机着法比一次，连没有直接暴露的窗口计数也覆盖到）；</li>
+ *   <li>量一次完整估值（从棋子摆出整块棋盘再估值）的用时：逐子 put、load + 标量内核、load + SWAR 内核，
+ *       以及两个内核单独的用时。</li>
+ * </ul>
+ * load 实际用哪个内核由全局配置 SwarKernel 决定，这里两个都量。
+ *
+ * 用法：java stud.tools.KernelBench [局面数] [轮数]
+ */
+public class KernelBench {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        List<byte[]> positions = new ArrayList<>();
+        List<Integer> sides = new ArrayList<>();
+        int stones = generate(count, 20240601L, positions, sides);
+        System.out.printf("%d positions, %.1f stones on average, kernel in use: %s%n",
+                positions.size(), (double) stones / positions.size(), LineKernel.SWAR ? "swar" : "scalar");
+
+        PatternEvaluator eval = SmartAI.patternEvaluator();
+        int mismatches = verify(positions, sides, eval);
+        System.out.println(mismatches == 0 ? "swar = scalar = put on every position" : mismatches + " MISMATCHES");
+
+        byte[][] counts = LineKernel.newCounts();
+        int[] fours = new int[3], sixes = new int[3];
+        FastBoard board = new FastBoard();
+        long put = Long.MAX_VALUE, load = Long.MAX_VALUE, scalar = Long.MAX_VALUE, swar = Long.MAX_VALUE;
+        long sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < positions.size(); i++) {
+                byte[] p = positions.get(i);
+                board.reset(sides.get(i));
+                for (int cell = 0; cell < EngineBoard.CELLS; cell++) if (p[cell] != EngineBoard.EMPTY) board.put(cell, p[cell]);
+                sink += eval.evaluate(board, board.sideToMove());
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < positions.size(); i++) {
+                board.load(positions.get(i), sides.get(i));
+                sink += eval.evaluate(board, board.sideToMove());
+            }
+            long t2 = System.nanoTime();
+            for (byte[] p : positions) LineKernel.countScalar(p, counts, fours, sixes);
+            long t3 = System.nanoTime();
+            for (byte[] p : positions) LineKernel.countSwar(p, counts, fours, sixes);
+            long t4 = System.nanoTime();
+            put = Math.min(put, t1 - t0);
+            load = Math.min(load, t2 - t1);
+            scalar = Math.min(scalar, t3 - t2);
+            swar = Math.min(swar, t4 - t3);
+        }
+        // load 里内核以外的部分（近邻、Zobrist、棋型）两种内核相同，换算出各自的整盘用时
+        long loadScalar = LineKernel.SWAR ? load - swar + scalar : load;
+        long loadSwar = LineKernel.SWAR ? load : load - scalar + swar;
+        double n = positions.size();
+        System.out.printf("%-28s %10s %8s%n", "per full evaluation", "ns", "speedup");
+        System.out.printf("%-28s %10.0f %8.2f%n", "reset + put per stone", put / n, 1.0);
+        System.out.printf("%-28s %10.0f %8.2f%n", "load, scalar kernel", loadScalar / n, (double) put / loadScalar);
+        System.out.printf("%-28s %10.0f %8.2f%n", "load, swar kernel", loadSwar / n, (double) put / loadSwar);
+        System.out.printf("%-28s %10.0f %8.2f%n", "kernel only, scalar", scalar / n, 1.0);
+        System.out.printf("%-28s %10.0f %8.2f%n", "kernel only, swar", swar / n, (double) scalar / swar);
+        if (sink == 42) System.out.println();
+    }
+
+    /** 固定种子的随机对局：每手在生成器的前几手里随机挑，走 2~40 手，有人成六就停；返回总子数 */
+    private static int generate(int count, long seed, List<byte[]> positions, List<Integer> sides) {
+        Random rnd = new Random(seed);
+        PairMoveGenerator gen = new PairMoveGenerator(10, 45);
+        int[] list = new int[256];
+        int stones = 0;
+        while (positions.size() < count) {
+            FastBoard b = SearchBench.opening();
+            int plies = 2 + rnd.nextInt(39);
+            for (int i = 0; i < plies && b.winner() == EngineBoard.EMPTY; i++) {
+                int n = gen.generate(b, list);
+                if (n == 0) break;
+                b.play(list[rnd.nextInt(Math.min(n, 6))]);
+            }
+            byte[] p = new byte[EngineBoard.CELLS];
+            for (int cell = 0; cell < EngineBoard.CELLS; cell++) {
+                p[cell] = (byte) b.get(cell);
+                if (p[cell] != EngineBoard.EMPTY) stones++;
+            }
+            positions.add(p);
+            sides.add(b.sideToMove());
+        }
+        return stones;
+    }
+
+    private static int verify(List<byte[]> positions, List<Integer> sides, PatternEvaluator eval) {
+        byte[][] a = LineKernel.newCounts(), b = LineKernel.newCounts();
+        Random rnd = new Random(7);
+        PairMoveGenerator gen = new PairMoveGenerator(10, 45);
+        int[] list = new int[256];
+        int bad = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            byte[] p = positions.get(i);
+            int[] fa = new int[3], sa = new int[3], fb = new int[3], sb = new int[3];
+            LineKernel.countSwar(p, a, fa, sa);
+            LineKernel.countScalar(p, b, fb, sb);
+            boolean ok = Arrays.deepEquals(a, b) && Arrays.equals(fa, fb) && Arrays.equals(sa, sb);
+
+            FastBoard put = new FastBoard(), load = new FastBoard();
+            put.reset(sides.get(i));
+            for (int cell = 0; cell < EngineBoard.CELLS; cell++) if (p[cell] != EngineBoard.EMPTY) put.put(cell, p[cell]);
+            load.load(p, sides.get(i));
+            ok &= same(put, load, eval);
+            for (int k = 0; k < 4 && ok && put.winner() == EngineBoard.EMPTY; k++) {
+                int n = gen.generate(put, list);
+                if (n == 0) break;
+                int m = list[rnd.nextInt(n)];
+                put.play(m);
+                load.play(m);
+                ok = same(put, load, eval);
+            }
+            if (!ok) bad++;
+        }
+        return bad;
+    }
+
+    private static boolean same(FastBoard x, FastBoard y, PatternEvaluator eval) {
+        if (x.hash() != y.hash() || x.winner() != y.winner() || x.sideToMove() != y.sideToMove()) return false;
+        if (eval.evaluate(x, EngineBoard.BLACK) != eval.evaluate(y, EngineBoard.BLACK)) return false;
+        if (x.winningMove(x.sideToMove()) != y.winningMove(y.sideToMove())) return false;
+        for (int c = EngineBoard.BLACK; c <= EngineBoard.WHITE; c++) {
+            if (x.fours(c) != y.fours(c)) return false;
+            for (int k = 0; k < FastBoard.PATTERNS; k++) if (x.pattern(c, k) != y.pattern(c, k)) return false;
+            for (int cell = 0; cell < EngineBoard.CELLS; cell++) {
+                if (x.near(cell) != y.near(cell) || x.potential(cell, c) != y.potential(cell, c)) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,393 @@
+package stud.tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 博弈树的并行 Alpha-Beta（Young Brothers Wait），输入与 TreeSolver 相同，用来研究并行剪枝。
+ *
+ * 上面 FORK_DEPTH 层里子树不小于 GRAIN 个结点的内部结点，先串行搜长子（eldest brother），得到一个窗口后，
+ * 其余子结点（young brothers）作为 fork/join 任务并行搜。再往下（层数够深或子树够小）就不拆任务，
+ * 在当前线程里用显式栈串行搜完，和 TreeSolver.search 一样，树再深也不会栈溢出。
+ * 窗口是共享的：拆任务的结点的 alpha/beta 随子结点返回而收紧，正在搜的后代每压一层栈都往上看 LOOKUP 层这样的结点，
+ * 取最紧的窗口；某个祖先已经剪枝的，后代直接放弃，结果不再使用。窗口只会越来越紧，看得不全只是少剪一些，不影响正确性。
+ * 单线程时整棵树都在显式栈上串行搜，剪枝与 TreeSolver 完全相同。
+ *
+ * 并行时访问兄弟的次序和剪枝的时机都变了，剪掉的集合与串行不同：报告里给出每种线程数下
+ * 访问的结点数、发生剪枝的结点数（父结点集合）和它与串行剪枝集合的重合比例，以及相对单线程的加速比。
+ * 根的估值一定与串行相同；估值相同的几手之间，并行可能选中另一手。
+ *
+ * 给了输出前缀时，每种线程数（取最快的一次）写一个文件“前缀-线程数.txt”，格式与 TreeSolver 的输出相同：
+ * 第一行“根 走步 估值”，其后每个剪枝的父结点一行“父结点 被剪的第一个子结点 类型”。并行时剪枝没有确定的先后，
+ * 按父结点排列；被剪的第一个子结点是让窗口闭合的那个子结点的下一个兄弟，当时已经在搜的兄弟也算被剪。
+ *
+ * 用法：java stud.tools.ParallelTreeSolver &lt;树文件&gt; [最多线程数（默认 CPU 核数）] [每种重复次数（默认 3，取最快）] [输出前缀]
+ */
+public class ParallelTreeSolver {
+
+    private static final int LOOKUP = 16;
+    private static final int GRAIN = 2048;
+    private static final int FORK_DEPTH = 12;
+
+    private final TreeSolver tree;
+    private final int[] subtree;            // 每个结点子树的结点数（含自己）
+
+    /** 一次搜索的统计 */
+    public static final class Result {
+        public int value, best;
+        public long visited, cutoffs, nanos;
+        // 按结点 key：剪枝时为（被剪的第一个子结点 << 1 | MAX 结点为 1），没剪枝为 TreeSolver.NONE
+        int[] pruned;
+
+        /** 与 other 的剪枝父结点集合的交集大小 */
+        public long overlap(Result other) {
+            long n = 0;
+            for (int i = 0; i < pruned.length; i++) {
+                if (pruned[i] != TreeSolver.NONE && other.pruned[i] != TreeSolver.NONE) n++;
+            }
+            return n;
+        }
+    }
+
+    public ParallelTreeSolver(TreeSolver tree) {
+        this.tree = tree;
+        this.subtree = subtreeSizes(tree);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: ParallelTreeSolver <tree file> [maxThreads] [repeats] [output prefix]");
+            return;
+        }
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        String prefix = args.length > 3 ? args[3] : null;
+        TreeSolver tree = TreeSolver.read(Paths.get(args[0]));
+        if (tree == null) {
+            System.out.println("Error: Failed to load tree. Please check " + args[0] + " format.");
+            return;
+        }
+        int serialValue = tree.search(Writer.nullWriter())[0];
+        ParallelTreeSolver solver = new ParallelTreeSolver(tree);
+        for (int i = 0; i < 3; i++) solver.solve(Math.min(2, maxThreads));   // 先让 JIT 编译热点，免得第一行吃亏
+        System.out.printf("%d nodes, serial value %d, %d cores%n", tree.size(), serialValue,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%7s %6s %6s %9s %8s %12s %10s %8s%n",
+                "threads", "value", "move", "ms", "speedup", "visited", "cutoffs", "overlap");
+        Result base = null;
+        for (int p = 1; p <= maxThreads; p++) {
+            Result best = null;
+            for (int r = 0; r < repeats; r++) {
+                Result res = solver.solve(p);
+                if (best == null || res.nanos < best.nanos) best = res;
+            }
+            if (base == null) base = best;
+            if (best.value != serialValue) System.out.println("VALUE MISMATCH with " + p + " threads");
+            System.out.printf("%7d %6d %6d %9.1f %8.2f %12d %10d %7.1f%%%n", p, best.value, tree.id(best.best),
+                    best.nanos / 1e6, (double) base.nanos / best.nanos, best.visited, best.cutoffs,
+                    base.cutoffs == 0 ? 100.0 : 100.0 * best.overlap(base) / base.cutoffs);
+            if (prefix != null) {
+                try (Writer w = Files.newBufferedWriter(Paths.get(prefix + "-" + p + ".txt"), StandardCharsets.UTF_8)) {
+                    solver.write(best, w);
+                }
+            }
+        }
+    }
+
+    /** 按 TreeSolver 的格式写出一次搜索的结果：第一行走步，其后按父结点排列的剪枝记录 */
+    public void write(Result r, Writer out) throws IOException {
+        Writer w = new BufferedWriter(out, 1 << 16);
+        String best = r.best == TreeSolver.NONE ? "-1" : String.valueOf(tree.id(r.best));
+        w.write(tree.id(tree.root) + " " + best + " " + r.value + "\n");
+        for (int node = 0; node < r.pruned.length; node++) {
+            int p = r.pruned[node];
+            if (p == TreeSolver.NONE) continue;
+            w.write(tree.id(node) + " " + tree.id(p >>> 1) + ((p & 1) != 0 ? " beta\n" : " alpha\n"));
+        }
+        w.flush();
+    }
+
+    /** 用 threads 个线程搜一遍 */
+    public Result solve(int threads) {
+        Result r = new Result();
+        r.pruned = new int[tree.size()];
+        Arrays.fill(r.pruned, TreeSolver.NONE);
+        Search s = new Search(r);
+        long t0 = System.nanoTime();
+        Frame root = new Frame(null, tree.root, 0, true, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (tree.leaf(tree.root)) {
+            root.best = tree.value[tree.root];
+        } else if (threads == 1) {
+            s.node(root);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(ForkJoinTask.adapt(() -> s.node(root)));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        r.nanos = System.nanoTime() - t0;
+        r.value = root.best;
+        r.best = root.bestChild;
+        r.visited = s.visited.sum();
+        r.cutoffs = s.cutoffs.sum();
+        return r;
+    }
+
+    /** 搜索中的一个内部结点：窗口和目前最好的值，由各子结点的任务共同更新 */
+    private static final class Frame {
+        final Frame parent;
+        final int node, depth;
+        final boolean max;
+        volatile int alpha, beta;
+        volatile boolean cut;
+        boolean aborted;                     // 因祖先剪枝而放弃，结果不可用
+        int best, bestChild = TreeSolver.NONE;
+
+        Frame(Frame parent, int node, int depth, boolean max, int alpha, int beta) {
+            this.parent = parent;
+            this.node = node;
+            this.depth = depth;
+            this.max = max;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.best = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+    }
+
+    private final class Search {
+        final Result result;
+        final LongAdder visited = new LongAdder(), cutoffs = new LongAdder();
+
+        Search(Result result) {
+            this.result = result;
+        }
+
+        /** 搜 f 的全部子结点：上面几层的大子树拆任务，其余在显式栈上串行 */
+        void node(Frame f) {
+            visited.increment();
+            if (f.depth < FORK_DEPTH && subtree[f.node] >= GRAIN && ForkJoinTask.inForkJoinPool()) fork(f);
+            else serial(f);
+        }
+
+        /** 长子串行，之后的兄弟拆成任务 */
+        void fork(Frame f) {
+            int from = tree.offsets[f.node], to = tree.offsets[f.node + 1];
+            child(f, tree.children[from]);
+            if (from + 1 == to || done(f)) return;
+            NodeTask[] young = new NodeTask[to - from - 1];
+            for (int i = from + 1; i < to; i++) young[i - from - 1] = new NodeTask(this, f, tree.children[i]);
+            ForkJoinTask.invokeAll(young);
+        }
+
+        /** 搜 f 的子结点 c：叶子直接取值，内部结点开一个 Frame */
+        void child(Frame f, int c) {
+            if (tree.leaf(c)) {
+                visited.increment();
+                update(f, tree.value[c], c);
+                return;
+            }
+            int a = f.alpha, b = f.beta;
+            Frame g = f.parent;
+            for (int k = 1; k < LOOKUP && g != null; k++, g = g.parent) {
+                a = Math.max(a, g.alpha);
+                b = Math.min(b, g.beta);
+            }
+            Frame h = new Frame(f, c, f.depth + 1, !f.max, a, b);
+            node(h);
+            h.aborted = !h.cut && abandoned(h);
+            if (!h.aborted) update(f, h.best, h.node);
+        }
+
+        /**
+         * f 的子树在当前线程里用显式栈搜完，栈的第 0 层是 f 的某个子结点。与 TreeSolver.search 相同，
+         * 只是压栈时还要用 f 往上的共享窗口收紧，发现祖先剪枝就整个放弃。
+         */
+        void serial(Frame f) {
+            Stack s = new Stack();
+            for (int i = tree.offsets[f.node], to = tree.offsets[f.node + 1]; i < to && !done(f); i++) {
+                int c = tree.children[i];
+                if (tree.leaf(c)) {
+                    visited.increment();
+                    update(f, tree.value[c], c);
+                    continue;
+                }
+                s.top = -1;
+                push(f, s, c, f.alpha, f.beta, !f.max);
+                while (true) {
+                    int d = s.top;
+                    int node = s.node[d];
+                    if (s.next[d] < tree.offsets[node + 1]) {
+                        int child = tree.children[s.next[d]++];
+                        if (tree.leaf(child)) {
+                            visited.increment();
+                            update(s, d, tree.value[child]);
+                        } else {
+                            if (done(f)) return;
+                            push(f, s, child, s.alpha[d], s.beta[d], !s.max[d]);
+                        }
+                        continue;
+                    }
+                    int v = s.best[d];
+                    if (d == 0) {
+                        update(f, v, c);
+                        break;
+                    }
+                    s.top--;
+                    update(s, d - 1, v);
+                }
+            }
+        }
+
+        /** 压入内部结点 key，窗口再用 f 和它往上 LOOKUP - 1 层的共享窗口收紧 */
+        void push(Frame f, Stack s, int key, int a, int b, boolean max) {
+            visited.increment();
+            Frame g = f;
+            for (int k = 0; k < LOOKUP && g != null; k++, g = g.parent) {
+                a = Math.max(a, g.alpha);
+                b = Math.min(b, g.beta);
+            }
+            s.push(key, tree.offsets[key], a, b, max);
+        }
+
+        /** 栈的第 d 层收到子结点的估值 v；剪枝时记下被剪的第一个兄弟，并跳过其余的 */
+        void update(Stack s, int d, int v) {
+            if (s.max[d]) {
+                s.best[d] = Math.max(s.best[d], v);
+                s.alpha[d] = Math.max(s.alpha[d], s.best[d]);
+            } else {
+                s.best[d] = Math.min(s.best[d], v);
+                s.beta[d] = Math.min(s.beta[d], s.best[d]);
+            }
+            if (s.beta[d] <= s.alpha[d]) {
+                int end = tree.offsets[s.node[d] + 1];
+                if (s.next[d] < end) cut(s.node[d], tree.children[s.next[d]], s.max[d]);
+                s.next[d] = end;
+            }
+        }
+
+        /** f 自己已经剪枝，或者往上 LOOKUP 层内有祖先剪枝（这时记为放弃） */
+        boolean done(Frame f) {
+            return f.cut || abandoned(f);
+        }
+
+        boolean abandoned(Frame f) {
+            Frame g = f.parent;
+            for (int k = 0; k < LOOKUP && g != null; k++, g = g.parent) if (g.cut) return true;
+            return false;
+        }
+
+        /** f 收到子结点 c 的值 v，窗口闭合就剪枝；剪枝后到达的值不再使用 */
+        void update(Frame f, int v, int c) {
+            synchronized (f) {
+                if (f.cut) return;
+                if (f.max ? v > f.best : v < f.best) {
+                    f.best = v;
+                    f.bestChild = c;
+                }
+                if (f.max) f.alpha = Math.max(f.alpha, f.best);
+                else f.beta = Math.min(f.beta, f.best);
+                int a = f.alpha, b = f.beta;
+                Frame g = f.parent;
+                for (int k = 0; k < LOOKUP && g != null; k++, g = g.parent) {
+                    a = Math.max(a, g.alpha);
+                    b = Math.min(b, g.beta);
+                }
+                // c 是最后一个子结点时，即使窗口闭合也没有兄弟可剪（与串行的记法一致）
+                int from = tree.offsets[f.node], to = tree.offsets[f.node + 1];
+                int i = Arrays.binarySearch(tree.children, from, to, c);
+                if (b <= a && i + 1 < to) {
+                    f.cut = true;
+                    cut(f.node, tree.children[i + 1], f.max);
+                }
+            }
+        }
+
+        /** 记下 node 处的剪枝；每个结点只会剪一次，数组各写各的格子，任务汇合后主线程可见 */
+        void cut(int node, int firstPruned, boolean max) {
+            cutoffs.increment();
+            result.pruned[node] = firstPruned << 1 | (max ? 1 : 0);
+        }
+    }
+
+    /** 串行部分的搜索栈：每层一个结点的状态，按树高增长 */
+    private static final class Stack {
+        int[] node = new int[64], next = new int[64], alpha = new int[64], beta = new int[64], best = new int[64];
+        boolean[] max = new boolean[64];
+        int top = -1;
+
+        void push(int key, int first, int a, int b, boolean isMax) {
+            if (++top == node.length) {
+                int n = node.length * 2;
+                node = Arrays.copyOf(node, n);
+                next = Arrays.copyOf(next, n);
+                alpha = Arrays.copyOf(alpha, n);
+                beta = Arrays.copyOf(beta, n);
+                best = Arrays.copyOf(best, n);
+                max = Arrays.copyOf(max, n);
+            }
+            node[top] = key;
+            next[top] = first;
+            alpha[top] = a;
+            beta[top] = b;
+            best[top] = isMax ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            max[top] = isMax;
+        }
+    }
+
+    /** 拆出去的一个小兄弟：父结点还没剪枝时搜子结点 child */
+    private static final class NodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final transient Search search;
+        final transient Frame parent;
+        final int child;
+
+        NodeTask(Search search, Frame parent, int child) {
+            this.search = search;
+            this.parent = parent;
+            this.child = child;
+        }
+
+        @Override
+        protected void compute() {
+            if (!search.done(parent)) search.child(parent, child);
+        }
+    }
+
+    /** 按 CSR 做一次显式栈的后序遍历，算出每棵子树的大小 */
+    private static int[] subtreeSizes(TreeSolver tree) {
+        int[] size = new int[tree.size()];
+        int[] stack = new int[64], next = new int[64];
+        int top = 0;
+        stack[0] = tree.root;
+        next[0] = tree.offsets[tree.root];
+        while (top >= 0) {
+            int node = stack[top];
+            if (next[top] < tree.offsets[node + 1]) {
+                int c = tree.children[next[top]++];
+                if (++top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                    next = Arrays.copyOf(next, top * 2);
+                }
+                stack[top] = c;
+                next[top] = tree.offsets[c];
+                continue;
+            }
+            size[node] = 1;
+            for (int i = tree.offsets[node]; i < tree.offsets[node + 1]; i++) size[node] += size[tree.children[i]];
+            top--;
+        }
+        return size;
+    }
+}
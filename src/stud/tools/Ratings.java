@@ -0,0 +1,192 @@
+package stud.tools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 根据结果库计算 Bradley-Terry 等级分（换算为 Elo）和置信区间，并输出各引擎的用时/速度面板。
+ *
+ * 和棋按半胜半负计。用 MM 迭代 (Hunter 2004) 求 γ，Elo = 400·log10(γ)，平均值归零；
+ * 置信区间用 Fisher 信息矩阵对角线近似。
+ *
+ * 用法：java stud.tools.Ratings [results.log]
+ */
+public class Ratings {
+
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> index = new HashMap<>();
+    private double[][] wins;   // wins[i][j]：i 对 j 的得分（和棋记 0.5）
+    private double[][] games;  // games[i][j]：i 与 j 的对局数
+    private double[] elo;
+    private double[] error;
+
+    public Ratings(List<ResultStore.Game> results) {
+        for (ResultStore.Game g : results) {
+            id(g.first);
+            id(g.second);
+        }
+        int n = names.size();
+        wins = new double[n][n];
+        games = new double[n][n];
+        for (ResultStore.Game g : results) {
+            int a = index.get(g.first), b = index.get(g.second);
+            if (a == b) continue;
+            games[a][b]++;
+            games[b][a]++;
+            if (g.result == GameRecord.FIRST_WIN) wins[a][b] += 1;
+            else if (g.result == GameRecord.SECOND_WIN) wins[b][a] += 1;
+            else {
+                wins[a][b] += 0.5;
+                wins[b][a] += 0.5;
+            }
+        }
+        solve();
+    }
+
+    private int id(String name) {
+        Integer i = index.get(name);
+        if (i == null) {
+            i = names.size();
+            names.add(name);
+            index.put(name, i);
+        }
+        return i;
+    }
+
+    private void solve() {
+        int n = names.size();
+        double[] gamma = new double[n];
+        java.util.Arrays.fill(gamma, 1);
+        for (int it = 0; it < 1000; it++) {
+            double change = 0;
+            for (int i = 0; i < n; i++) {
+                // 加一点先验（和一个虚拟对手各一胜一负），避免全胜/全负时发散
+                double w = 1, denom = 2 / (gamma[i] + 1);
+                for (int j = 0; j < n; j++) {
+                    if (games[i][j] == 0) continue;
+                    w += wins[i][j];
+                    denom += games[i][j] / (gamma[i] + gamma[j]);
+                }
+                double g = w / denom;
+                change = Math.max(change, Math.abs(Math.log(g / gamma[i])));
+                gamma[i] = g;
+            }
+            if (change < 1e-9) break;
+        }
+
+        elo = new double[n];
+        error = new double[n];
+        double mean = 0;
+        for (int i = 0; i < n; i++) {
+            elo[i] = 400 * Math.log10(gamma[i]);
+            mean += elo[i] / n;
+        }
+        for (int i = 0; i < n; i++) {
+            elo[i] -= mean;
+            double info = 0;
+            for (int j = 0; j < n; j++) {
+                if (games[i][j] == 0) continue;
+                double p = gamma[i] / (gamma[i] + gamma[j]);
+                info += games[i][j] * p * (1 - p);
+            }
+            // 自然对数刻度下的标准差换算到 Elo，取 95% 区间
+            error[i] = info == 0 ? Double.POSITIVE_INFINITY : 1.96 * 400 / Math.log(10) / Math.sqrt(info);
+        }
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public double elo(String name) {
+        return elo[index.get(name)];
+    }
+
+    public double error(String name) {
+        return error[index.get(name)];
+    }
+
+    private double score(int i) {
+        double w = 0, g = 0;
+        for (int j = 0; j < names.size(); j++) {
+            w += wins[i][j];
+            g += games[i][j];
+        }
+        return g == 0 ? 0 : w / g;
+    }
+
+    private int played(int i) {
+        double g = 0;
+        for (int j = 0; j < names.size(); j++) g += games[i][j];
+        return (int) g;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String file = args.length > 0 ? args[0] : ResultStore.DEFAULT_FILE;
+        ResultStore store = new ResultStore(Paths.get(file)).load();
+        if (store.games().isEmpty()) {
+            System.out.println("no games in " + file);
+            return;
+        }
+
+        Ratings r = new Ratings(store.games());
+
+        // 汇总每个引擎的用时、速度和超时次数
+        Map<String, long[]> perf = new HashMap<>(); // moves, nanos, nodes, 最差 p99, max, 看门狗超时
+        for (ResultStore.Engine e : store.engines()) {
+            long[] p = perf.computeIfAbsent(e.name, k -> new long[6]);
+            p[0] += e.moves;
+            p[1] += e.nanos;
+            p[2] += e.nodes;
+            p[3] = Math.max(p[3], e.p99);
+            p[4] = Math.max(p[4], e.max);
+            p[5] += e.timeouts;
+        }
+        Map<String, Integer> forfeits = new HashMap<>();
+        for (ResultStore.Game g : store.games()) {
+            String f = g.forfeited();
+            if (f != null) forfeits.merge(f, 1, Integer::sum);
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < r.names.size(); i++) order.add(i);
+        order.sort((a, b) -> Double.compare(r.elo[b], r.elo[a]));
+
+        System.out.println("=============================== Ratings (" + store.games().size() + " games) ===============================");
+        System.out.printf("%-16s %6s %7s %8s %7s %10s %9s %9s %12s %6s %8s%n",
+                "engine", "games", "score", "elo", "+/-", "ms/move", "p99 ms", "max ms", "nps", "late", "timeouts");
+        for (int i : order) {
+            String name = r.names.get(i);
+            long[] p = perf.get(name);
+            String ms = p == null || p[0] == 0 ? "-" : String.format("%.2f", p[1] / 1e6 / p[0]);
+            String nps = p == null || p[1] == 0 ? "-" : String.format("%.0f", p[2] * 1e9 / p[1]);
+            String p99 = p == null || p[3] == 0 ? "-" : String.format("%.1f", p[3] / 1e6);
+            String max = p == null || p[4] == 0 ? "-" : String.format("%.1f", p[4] / 1e6);
+            String late = p == null ? "-" : String.valueOf(p[5]);
+            System.out.printf("%-16s %6d %6.1f%% %8.1f %7.1f %10s %9s %9s %12s %6s %8d%n",
+                    name, r.played(i), 100 * r.score(i), r.elo[i], r.error[i], ms, p99, max, nps, late,
+                    forfeits.getOrDefault(name, 0));
+        }
+
+        // 按时间顺序列出每次比赛中各引擎的速度，观察引擎改动是否在拿速度换棋力
+        System.out.println();
+        System.out.println("=============================== History ===============================");
+        Map<String, List<ResultStore.Engine>> runs = new LinkedHashMap<>();
+        for (ResultStore.Engine e : store.engines()) {
+            runs.computeIfAbsent(e.time + "  " + e.event, k -> new ArrayList<>()).add(e);
+        }
+        for (Map.Entry<String, List<ResultStore.Engine>> run : runs.entrySet()) {
+            System.out.println(run.getKey());
+            for (ResultStore.Engine e : run.getValue()) {
+                System.out.printf("    %-16s %8d moves %10.2f ms/move %9.1f ms p99 %12.0f nps%n", e.name, e.moves,
+                        e.moves == 0 ? 0 : e.nanos / 1e6 / e.moves, e.p99 / 1e6,
+                        e.nanos == 0 ? 0 : e.nodes * 1e9 / e.nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package stud.tools;
+
+import core.game.GameResult;
+import core.player.Player;
+import stud.core.EngineStats;
+import stud.core.Instrumented;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 比赛结果库：每次狂欢赛/联赛结束后把所有对局和各引擎的用时统计追加到一个文本文件里，
+ * 只追加不修改，供 Ratings 计算历史等级分。
+ *
+ * 每行以 tab 分隔：
+ * <pre>
+ * G  时间  赛事  先手  后手  结果(1先胜/2后胜/0和)  步数  结束原因
+ * E  时间  赛事  引擎  步数  用时(ns)  节点数  每步用时p50(ns)  p99(ns)  max(ns)  看门狗超时次数
+ * </pre>
+ */
+public class ResultStore {
+
+    public static final String DEFAULT_FILE = "results.log";
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    /** 一局对局结果 */
+    public static class Game {
+        public final String time, event, first, second;
+        public final int result, steps;
+        public final char endReason;
+
+        Game(String[] f) {
+            time = f[1];
+            event = f[2];
+            first = f[3];
+            second = f[4];
+            result = Integer.parseInt(f[5]);
+            steps = Integer.parseInt(f[6]);
+            endReason = f[7].isEmpty() ? '?' : f[7].charAt(0);
+        }
+
+        /** 超时判负的一方，没有超时返回 null */
+        public String forfeited() {
+            if (endReason != 'T') return null;
+            return result == GameRecord.FIRST_WIN ? second : first;
+        }
+    }
+
+    /** 一次比赛中某个引擎的用时统计（旧记录没有分位数列，按 0 处理） */
+    public static class Engine {
+        public final String time, event, name;
+        public final long moves, nanos, nodes;
+        public final long p50, p99, max, timeouts;
+
+        Engine(String[] f) {
+            time = f[1];
+            event = f[2];
+            name = f[3];
+            moves = Long.parseLong(f[4]);
+            nanos = Long.parseLong(f[5]);
+            nodes = Long.parseLong(f[6]);
+            p50 = f.length > 7 ? Long.parseLong(f[7]) : 0;
+            p99 = f.length > 8 ? Long.parseLong(f[8]) : 0;
+            max = f.length > 9 ? Long.parseLong(f[9]) : 0;
+            timeouts = f.length > 10 ? Long.parseLong(f[10]) : 0;
+        }
+    }
+
+    private final Path file;
+    private final List<Game> games = new ArrayList<>();
+    private final List<Engine> engines = new ArrayList<>();
+
+    public ResultStore(Path file) {
+        this.file = file;
+    }
+
+    /** 把这些棋手下过的所有对局（去重）和他们的用时统计追加到默认结果库 */
+    public static void append(String event, List<Player> players) {
+        try {
+            new ResultStore(Paths.get(DEFAULT_FILE)).record(event, players);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void record(String event, List<Player> players) throws IOException {
+        List<GameRecord> played = new ArrayList<>();
+        Set<GameResult> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Player player : players) {
+            for (GameResult result : player.gameResults()) {
+                if (seen.add(result)) played.add(GameRecord.of(result));
+            }
+        }
+        List<String[]> rows = new ArrayList<>();
+        for (Player player : players) {
+            if (!(player instanceof Instrumented)) continue;
+            EngineStats s = ((Instrumented) player).stats();
+            rows.add(new String[]{player.name(), String.valueOf(s.moves()), String.valueOf(s.nanos()),
+                    String.valueOf(s.nodes()), String.valueOf(s.percentile(0.5)), String.valueOf(s.percentile(0.99)),
+                    String.valueOf(s.maxNanos()), String.valueOf(s.timeouts())});
+        }
+        record(event, played, rows);
+    }
+
+    /**
+     * 对局不在本进程里下的时候（如 Farm）用：直接给出对局和用时统计，
+     * 每行依次为引擎、步数、用时、节点数、p50、p99、max、超时次数，即 E 行“赛事”之后的各列
+     */
+    public void record(String event, List<GameRecord> played, List<String[]> engineRows) throws IOException {
+        String now = LocalDateTime.now().format(TIME);
+        String ev = clean(event);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (GameRecord r : played) {
+                out.write(String.join("\t", "G", now, ev, clean(r.getFirst()), clean(r.getSecond()),
+                        String.valueOf(r.getResult()), String.valueOf(r.getSteps()),
+                        String.valueOf(r.getEndReason())));
+                out.newLine();
+            }
+            for (String[] row : engineRows) {
+                String[] f = row.clone();
+                f[0] = clean(f[0]);
+                out.write("E\t" + now + "\t" + ev + "\t" + String.join("\t", f));
+                out.newLine();
+            }
+        }
+    }
+
+    private static String clean(String s) {
+        return s.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    /** 读入整个结果库 */
+    public ResultStore load() throws IOException {
+        games.clear();
+        engines.clear();
+        if (!Files.exists(file)) return this;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = line.split("\t", -1);
+                try {
+                    if (f[0].equals("G") && f.length >= 8) games.add(new Game(f));
+                    else if (f[0].equals("E") && f.length >= 7) engines.add(new Engine(f));
+                } catch (NumberFormatException e) {
+                    System.err.println("skipping bad line: " + line);
+                }
+            }
+        }
+        return this;
+    }
+
+    public List<Game> games() {
+        return games;
+    }
+
+    public List<Engine> engines() {
+        return engines;
+    }
+}
@@ -0,0 +1,209 @@
+package stud.tools;
+
+import core.game.ui.Configuration;
+import stud.core.EngineBoard;
+import stud.core.Engine;
+import stud.core.EngineParams;
+import stud.core.EvalCache;
+import stud.core.FastBoard;
+import stud.core.MoveGenerator;
+import stud.core.Moves;
+import stud.core.PairMoveGenerator;
+import stud.core.Threats;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 搜索基准：在同一批局面上用固定深度、不限时地跑几种参数配置，比较节点数、用时和选出的着法。
+ * <ul>
+ *   <li>pruning：向前裁剪（Lmr / NullMove / ProbCut）各自省掉了多少节点、又改变了多少次最佳着法；</li>
+ *   <li>generator：PairMoveGenerator 和两阶段 ConditionalMoveGenerator 的分支数、生成耗时和搜索结果，
+ *       以及分阶段生成 (StagedMoves) 关掉后的对比。分支数同时在平静局面和“对方刚冲四”的局面上统计；</li>
+ *   <li>eval：估值缓存 (EvalCacheBits) 不同大小的命中率和用时。</li>
+ * </ul>
+ *
+ * 局面来自棋谱文件（每局每隔几手取一个），没有给棋谱时用固定种子随机走出开局局面。
+ * 第一种配置是基准，其余配置的“节点”一列给出相对基准省掉的比例，“同着”一列给出与基准选择相同着法的比例。
+ *
+ * 用法：java stud.tools.SearchBench [局面数] [深度] [棋手类名] [pruning|generator|eval] [棋谱文件]
+ */
+public class SearchBench {
+
+    /** 配置名 + 参数覆盖 */
+    private static final String[][] PRUNING = {
+            {"none", "Lmr=false,NullMove=false,ProbCut=false"},
+            {"lmr", "Lmr=true,NullMove=false,ProbCut=false"},
+            {"null", "Lmr=false,NullMove=true,ProbCut=false"},
+            {"probcut", "Lmr=false,NullMove=false,ProbCut=true"},
+            {"all", "Lmr=true,NullMove=true,ProbCut=true"},
+    };
+
+    private static final String[][] GENERATOR = {
+            {"pair", "ConditionalMoves=false"},
+            {"cond", "ConditionalMoves=true"},
+            {"wide", "ConditionalMoves=false,CandidateTopK=30"},
+            {"killers", "ConditionalMoves=false,Killers=true"},
+            {"eager", "ConditionalMoves=false,StagedMoves=false"},
+    };
+
+    private static final String[][] EVAL = {
+            {"nocache", "EvalCacheBits=0"},
+            {"cache12", "EvalCacheBits=12"},
+            {"cache16", "EvalCacheBits=16"},
+            {"cache20", "EvalCacheBits=20"},
+    };
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        String engine = args.length > 2 ? args[2] : "stud.g09.AI";
+        String suite = args.length > 3 ? args[3] : "pruning";
+        Configuration.GUI = false;
+
+        List<FastBoard> positions = args.length > 4 ? fromRecords(args[4], count) : random(count, 20240601L);
+        System.out.printf("%d positions, depth %d, %s%n", positions.size(), depth, engine);
+        String[][] configs = suite.equals("generator") ? GENERATOR : suite.equals("eval") ? EVAL : PRUNING;
+        if (configs == GENERATOR) branching(engine, configs, positions);
+        System.out.printf("%-8s %12s %8s %10s %6s  %s%n", "config", "nodes", "saved", "ms", "same", "pruning");
+
+        // 先空跑一遍让 JIT 编译完，否则第一种配置的用时偏高
+        Engine warm = newEngine(engine, configs[0][1]);
+        for (FastBoard p : positions) warm.analyse(snapshot(p), Math.max(1, depth - 1));
+
+        long baseNodes = 0;
+        int[] baseMoves = null;
+        for (String[] c : configs) {
+            Engine e = newEngine(engine, c[1]);
+            int[] chosen = new int[positions.size()];
+            long t0 = System.nanoTime();
+            for (int i = 0; i < positions.size(); i++) {
+                FastBoard b = new FastBoard();
+                b.copyFrom(positions.get(i));
+                chosen[i] = e.analyse(b, depth);
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            long nodes = e.stats().nodes();
+            if (baseMoves == null) {
+                baseNodes = nodes;
+                baseMoves = chosen;
+            }
+            int same = 0;
+            for (int i = 0; i < chosen.length; i++) if (chosen[i] == baseMoves[i]) same++;
+            System.out.printf("%-8s %12d %7.1f%% %10d %5.0f%%  %s%n", c[0], nodes,
+                    baseNodes == 0 ? 0 : 100.0 * (baseNodes - nodes) / baseNodes, ms,
+                    100.0 * same / Math.max(1, chosen.length), e.searcher().pruningStats()
+                            + (e.evaluator() instanceof EvalCache ? ", " + e.evaluator() : ""));
+        }
+    }
+
+    /** 每种生成器在平静局面和受威胁局面上的平均着法数和每次生成的耗时 */
+    private static void branching(String engine, String[][] configs, List<FastBoard> positions) {
+        List<FastBoard> threatened = new ArrayList<>();
+        int[] buf = new int[EngineBoard.CELLS];
+        int[] scores = new int[EngineBoard.CELLS];
+        int[] list = new int[256];
+        for (FastBoard p : positions) {
+            // 让轮到的一方冲一手四，得到对方必须防守的局面
+            int me = p.sideToMove();
+            int np = Threats.attackPoints(p, me, 10, buf, scores);
+            int[] pts = java.util.Arrays.copyOf(buf, np);
+            if (Threats.attacks(p, me, pts, np, 1, list) == 0) continue;
+            FastBoard t = snapshot(p);
+            t.play(list[0]);
+            if (t.winner() == EngineBoard.EMPTY && t.winningMove(t.sideToMove()) == Moves.NONE) threatened.add(t);
+        }
+        System.out.printf("%-8s %12s %10s %12s %10s%n", "config", "quiet moves", "quiet us", "threat moves", "threat us");
+        for (String[] c : configs) {
+            MoveGenerator g = newEngine(engine, c[1]).generator();
+            long[] quiet = measure(g, positions, list);
+            long[] threat = measure(g, threatened, list);
+            System.out.printf("%-8s %12.1f %10.1f %12.1f %10.1f%n", c[0],
+                    (double) quiet[0] / Math.max(1, positions.size()), quiet[1] / 1e3 / Math.max(1, positions.size()),
+                    (double) threat[0] / Math.max(1, threatened.size()), threat[1] / 1e3 / Math.max(1, threatened.size()));
+        }
+        System.out.printf("(%d threatened positions)%n%n", threatened.size());
+    }
+
+    /** 返回 {着法总数, 总耗时纳秒}；先预热一遍 */
+    private static long[] measure(MoveGenerator g, List<FastBoard> positions, int[] list) {
+        for (FastBoard p : positions) g.generate(p, list);
+        long moves = 0, t0 = System.nanoTime();
+        for (FastBoard p : positions) moves += g.generate(p, list);
+        return new long[]{moves, System.nanoTime() - t0};
+    }
+
+    private static Engine newEngine(String className, String overrides) {
+        Engine proto = (Engine) SelfPlay.newPlayer(className);
+        EngineParams p = proto.params().copy();
+        for (String kv : overrides.split(",")) {
+            String[] x = kv.split("=", 2);
+            p.set(x[0], x[1]);
+        }
+        try {
+            return (Engine) Class.forName(className).getDeclaredConstructor(EngineParams.class).newInstance(p);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(className + " has no (EngineParams) constructor", e);
+        }
+    }
+
+    /** 框架棋盘开局时天元已有一枚黑子，白方先走 */
+    static FastBoard opening() {
+        FastBoard b = new FastBoard();
+        b.reset(EngineBoard.WHITE);
+        b.put(180, EngineBoard.BLACK);
+        return b;
+    }
+
+    /** 从棋谱里取局面：每局从第 4 手起每隔 3 手取一个，跳过已经有人能一手成六的 */
+    static List<FastBoard> fromRecords(String file, int count) throws IOException {
+        List<FastBoard> out = new ArrayList<>();
+        try (GameRecordReader in = new GameRecordReader(Paths.get(file))) {
+            for (GameRecord r : in) {
+                FastBoard b = opening();
+                for (int i = 0; i < r.moveCount() && out.size() < count; i++) {
+                    int m = Moves.pack(r.cell(i, 0), r.cell(i, 1));
+                    if (b.get(Moves.first(m)) != EngineBoard.EMPTY || b.get(Moves.second(m)) != EngineBoard.EMPTY) break;
+                    b.play(m);
+                    if (b.winner() != EngineBoard.EMPTY) break;
+                    if (i >= 3 && i % 3 == 0 && quiet(b)) out.add(snapshot(b));
+                }
+                if (out.size() >= count) break;
+            }
+        }
+        return out;
+    }
+
+    /** 固定种子随机开局：每手在生成器给出的前几手里随机挑，走 4~14 手 */
+    static List<FastBoard> random(int count, long seed) {
+        Random rnd = new Random(seed);
+        PairMoveGenerator gen = new PairMoveGenerator(10, 45);
+        int[] list = new int[256];
+        List<FastBoard> out = new ArrayList<>();
+        while (out.size() < count) {
+            FastBoard b = opening();
+            int plies = 4 + rnd.nextInt(11);
+            for (int i = 0; i < plies && quiet(b); i++) {
+                int n = gen.generate(b, list);
+                if (n == 0) break;
+                b.play(list[rnd.nextInt(Math.min(n, 6))]);
+            }
+            if (quiet(b)) out.add(snapshot(b));
+        }
+        return out;
+    }
+
+    /** 双方都没有威胁窗口：这样的局面才需要真正的搜索 */
+    private static boolean quiet(FastBoard b) {
+        return b.winner() == EngineBoard.EMPTY && b.fours(EngineBoard.BLACK) == 0 && b.fours(EngineBoard.WHITE) == 0;
+    }
+
+    private static FastBoard snapshot(FastBoard b) {
+        FastBoard c = new FastBoard();
+        c.copyFrom(b);
+        return c;
+    }
+}
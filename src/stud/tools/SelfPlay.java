@@ -0,0 +1,60 @@
+package stud.tools;
+
+import core.game.Game;
+import core.game.GameResult;
+import core.game.ui.Configuration;
+import core.player.Player;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * 自对弈数据生成：让两个棋手不停对局（轮换先后手），把每局棋谱追加到棋谱文件中。
+ *
+ * 用法：java stud.tools.SelfPlay &lt;局数&gt; &lt;棋谱文件&gt; [棋手类名A] [棋手类名B]
+ */
+public class SelfPlay {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: SelfPlay <games> <file> [playerClassA] [playerClassB]");
+            return;
+        }
+        int games = Integer.parseInt(args[0]);
+        String a = args.length > 2 ? args[2] : "stud.g09.AI";
+        String b = args.length > 3 ? args[3] : a;
+
+        Configuration.GUI = false;
+        try (GameRecordWriter out = new GameRecordWriter(Paths.get(args[1]))) {
+            for (int i = 0; i < games; i++) {
+                // 轮换先后手
+                String first = (i % 2 == 0) ? a : b;
+                String second = (i % 2 == 0) ? b : a;
+                out.write(GameRecord.of(play(newPlayer(first), newPlayer(second))));
+                if ((i + 1) % 100 == 0) System.out.println((i + 1) + " games");
+            }
+            System.out.println("written " + out.written() + " games to " + args[1]);
+        }
+    }
+
+    /**
+     * 在当前线程下完一局棋，返回结果。
+     * 每局都应使用新的棋手实例，避免 gameResults 在长时间运行中不断增长。
+     */
+    public static GameResult play(Player first, Player second) {
+        Game game = new Game(first, second);
+        game.run();
+        ArrayList<GameResult> results = first.gameResults();
+        return results.get(results.size() - 1);
+    }
+
+    /** 按类名创建棋手，例如 "stud.g09.AI" */
+    public static Player newPlayer(String className) {
+        try {
+            return (Player) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("cannot create player " + className, e);
+        }
+    }
+}
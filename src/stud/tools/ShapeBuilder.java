@@ -0,0 +1,107 @@
+package stud.tools;
+
+import stud.core.Deadline;
+import stud.core.EngineBoard;
+import stud.core.EngineStats;
+import stud.core.FastBoard;
+import stud.core.Moves;
+import stud.core.ShapeLibrary;
+import stud.core.ThreatSearcher;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 离线生成必胜棋型库（ShapeLibrary）。
+ *
+ * 枚举 5×5 范围内 2~maxStones 个己方棋子的所有规范棋型（平移、旋转、翻转后相同的只算一次），
+ * 摆在空棋盘中央由轮到的一方用 ThreatSearcher 算杀。能一手成六的不收（引擎第一步就会发现），
+ * 已收录棋型加一子得到的棋型也不收（查找时会枚举子集，找到更小的那个）。
+ * 这里只保证“周围空着时必胜”，实战局面由引擎用 ThreatSearcher.wins 再验证。
+ *
+ * 用法：java stud.tools.ShapeBuilder [最多子数] [算杀深度] [算杀节点上限] [输出文件]
+ * 引擎参数 Shapes 指向输出文件即可使用。
+ */
+public class ShapeBuilder {
+
+    private static final int ORIGIN = 7;                 // 棋型左上角摆在 (7, 7)
+
+    private final ShapeLibrary library;
+    private final int depth;
+    private final ThreatSearcher searcher;
+    private final int[] rows = new int[ShapeLibrary.BOX * ShapeLibrary.BOX];
+    private final int[] cols = new int[ShapeLibrary.BOX * ShapeLibrary.BOX];
+    private long candidates;
+
+    /** nodes：每次算杀最多展开的进攻节点，超出就当没杀成 */
+    public ShapeBuilder(int maxStones, int depth, int nodes) {
+        this.library = new ShapeLibrary(maxStones);
+        this.searcher = new ThreatSearcher(new EngineStats(), new Deadline(), nodes, null);
+        this.depth = depth;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxStones = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int nodes = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        String out = args.length > 3 ? args[3] : "shapes.bin";
+
+        ShapeBuilder b = new ShapeBuilder(maxStones, depth, nodes);
+        long t0 = System.nanoTime();
+        for (int k = 2; k <= maxStones; k++) {
+            int before = b.library.size();
+            b.enumerate(k, 0, 0, 0);
+            System.out.printf("%d stones: %d shapes (%d candidates), %.1fs%n",
+                    k, b.library.size() - before, b.candidates, (System.nanoTime() - t0) / 1e9);
+        }
+        b.library.save(Paths.get(out));
+        System.out.printf("%d shapes written to %s%n", b.library.size(), out);
+    }
+
+    /** 在 5×5 的格子里从 from 起再选 left 个子，mask 为已选的位图 */
+    private void enumerate(int left, int from, int mask, int chosen) {
+        if (left == 0) {
+            consider(mask, chosen);
+            return;
+        }
+        for (int i = from; i <= ShapeLibrary.BOX * ShapeLibrary.BOX - left; i++) {
+            rows[chosen] = i / ShapeLibrary.BOX;
+            cols[chosen] = i % ShapeLibrary.BOX;
+            enumerate(left - 1, i + 1, mask | 1 << i, chosen + 1);
+        }
+    }
+
+    private void consider(int mask, int k) {
+        if (ShapeLibrary.canonical(rows, cols, k) != mask || minimalContained(k)) return;
+        candidates++;
+        FastBoard board = new FastBoard();
+        board.reset(EngineBoard.WHITE);
+        for (int s = 0; s < k; s++) board.put(cell(rows[s], cols[s]), EngineBoard.WHITE);
+        if (board.winningMove(EngineBoard.WHITE) != Moves.NONE) return;
+
+        int move = searcher.search(board, depth);
+        if (move == Moves.NONE) return;
+        int a = Moves.first(move), b = Moves.second(move);
+        library.add(mask, ShapeLibrary.packMove(a / EngineBoard.SIZE - ORIGIN, a % EngineBoard.SIZE - ORIGIN,
+                b / EngineBoard.SIZE - ORIGIN, b % EngineBoard.SIZE - ORIGIN));
+    }
+
+    /** 去掉一个子后的棋型已经收录了 */
+    private boolean minimalContained(int k) {
+        if (k <= 2) return false;
+        int[] r = new int[k - 1], c = new int[k - 1];
+        for (int skip = 0; skip < k; skip++) {
+            for (int s = 0, j = 0; s < k; s++) {
+                if (s == skip) continue;
+                r[j] = rows[s];
+                c[j++] = cols[s];
+            }
+            if (library.contains(ShapeLibrary.canonical(r, c, k - 1))) return true;
+        }
+        return false;
+    }
+
+    private static int cell(int r, int c) {
+        return (ORIGIN + r) * EngineBoard.SIZE + ORIGIN + c;
+    }
+}
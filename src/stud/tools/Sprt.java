@@ -0,0 +1,163 @@
+package stud.tools;
+
+import core.game.ui.Configuration;
+import core.player.Player;
+
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * 序贯概率比检验 (SPRT)：候选引擎对基准引擎不断对局，
+ * 一旦对数似然比 (LLR) 越过上界 (接受 H1: Elo >= elo1) 或下界 (接受 H0: Elo <= elo0) 就停止。
+ *
+ * 采用三项分布的广义 SPRT 近似：LLR = N·(s1-s0)·(2s-s0-s1) / (2σ²)，
+ * 其中 s 为候选引擎的平均得分，σ² 为单局得分方差，s0/s1 为 elo0/elo1 对应的期望得分。
+ */
+public class Sprt {
+
+    public enum Status { CONTINUE, ACCEPT_H0, ACCEPT_H1 }
+
+    private final double elo0, elo1;
+    private final double lower, upper;
+    private int wins, draws, losses;
+
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+    }
+
+    /** 记录一局结果（候选引擎视角）：1 胜，0.5 和，0 负 */
+    public synchronized void add(double score) {
+        if (score > 0.75) wins++;
+        else if (score < 0.25) losses++;
+        else draws++;
+    }
+
+    public synchronized int games() {
+        return wins + draws + losses;
+    }
+
+    public synchronized double llr() {
+        if (games() == 0) return 0;
+        // 胜负一边为 0 时方差会退化，各补半局虚拟棋局；均值、方差和最后的局数都按补过的 n 算，三者一致
+        double w = wins, d = draws, l = losses;
+        if (w == 0 || l == 0) {
+            w += 0.5;
+            l += 0.5;
+        }
+        double n = w + d + l;
+        double s = (w + d / 2) / n;
+        double var = (w * (1 - s) * (1 - s) + d * (0.5 - s) * (0.5 - s) + l * s * s) / n;
+        if (var <= 0) return 0;
+        double s0 = expectedScore(elo0), s1 = expectedScore(elo1);
+        return n * (s1 - s0) * (2 * s - s0 - s1) / (2 * var);
+    }
+
+    public synchronized Status status() {
+        double llr = llr();
+        if (llr >= upper) return Status.ACCEPT_H1;
+        if (llr <= lower) return Status.ACCEPT_H0;
+        return Status.CONTINUE;
+    }
+
+    public synchronized double score() {
+        int n = games();
+        return n == 0 ? 0.5 : (wins + draws / 2.0) / n;
+    }
+
+    /** 当前 Elo 估计 */
+    public synchronized double elo() {
+        return elo(score());
+    }
+
+    /** 95% 置信区间半宽（按得分的正态近似换算到 Elo） */
+    public synchronized double eloError() {
+        int n = games();
+        if (n < 2) return Double.POSITIVE_INFINITY;
+        double s = score();
+        double var = (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / n;
+        double se = Math.sqrt(var / n);
+        return (elo(s + 1.96 * se) - elo(s - 1.96 * se)) / 2;
+    }
+
+    static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    static double elo(double score) {
+        double s = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / s - 1);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("games=%d W/D/L=%d/%d/%d LLR=%.2f (%.2f, %.2f) Elo=%.1f +/- %.1f",
+                games(), wins, draws, losses, llr(), lower, upper, elo(), eloError());
+    }
+
+    /**
+     * 并行对局直到检验结束或达到 maxGames。
+     * 每局都用新的棋手实例，候选引擎先后手轮换。
+     */
+    public Status run(Supplier<Player> baseline, Supplier<Player> candidate, int threads, int maxGames) {
+        Configuration.GUI = false;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ExecutorCompletionService<Double> done = new ExecutorCompletionService<>(pool);
+        int submitted = 0, running = 0;
+        try {
+            while (true) {
+                // 保持每个线程都有棋下
+                while (running < threads && submitted < maxGames) {
+                    final boolean candidateFirst = submitted % 2 == 0;
+                    done.submit(() -> playOne(baseline, candidate, candidateFirst));
+                    submitted++;
+                    running++;
+                }
+                if (running == 0) break;
+
+                add(done.take().get());
+                running--;
+                System.out.println(this);
+                if (status() != Status.CONTINUE) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        Status s = status();
+        System.out.println("SPRT [" + elo0 + ", " + elo1 + "]: " + s + " after " + games() + " games");
+        return s;
+    }
+
+    private static double playOne(Supplier<Player> baseline, Supplier<Player> candidate, boolean candidateFirst) {
+        Player c = candidate.get(), b = baseline.get();
+        GameRecord r = GameRecord.of(candidateFirst ? SelfPlay.play(c, b) : SelfPlay.play(b, c));
+        if (r.getResult() == GameRecord.DRAW) return 0.5;
+        boolean firstWon = r.getResult() == GameRecord.FIRST_WIN;
+        return firstWon == candidateFirst ? 1 : 0;
+    }
+
+    /**
+     * java stud.tools.Sprt &lt;基准类名&gt; &lt;候选类名&gt; [elo0] [elo1] [线程数] [最多局数]
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: Sprt <baselineClass> <candidateClass> [elo0] [elo1] [threads] [maxGames]");
+            return;
+        }
+        double elo0 = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        double elo1 = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int maxGames = args.length > 5 ? Integer.parseInt(args[5]) : 20000;
+        new Sprt(elo0, elo1, 0.05, 0.05).run(
+                () -> SelfPlay.newPlayer(args[0]), () -> SelfPlay.newPlayer(args[1]), threads, maxGames);
+    }
+}
@@ -0,0 +1,42 @@
+package stud.tools;
+
+import core.game.Game;
+import core.game.Move;
+import core.game.ui.Configuration;
+import stud.core.Engine;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 启动基准：在一个新 JVM 里量“从进程启动到第一手搜索着法”要多久，看 JIT 预热（Engine.warmUp）
+ * 和 AppCDS 归档（scripts/appcds.sh）各省下多少。
+ *
+ * 开一盘棋（框架在开局时调用 playGame，预热就发生在这里，不计入对局时钟），白方第一手固定为 FIRST
+ * （框架自带的第一手是随机的，不便比较），量的是黑方回应的那一手：思考用时、搜索节点数，以及此时 JVM 已经运行的时间。
+ * 每次运行只有第一手是冷的，所以要比较就多起几次进程。
+ *
+ * 用法：java stud.tools.StartupBench [棋手]      （棋手写法同 Farm，例如 stud.g09.AI:WarmupMs=0）
+ */
+public class StartupBench {
+
+    private static final String FIRST = "KKLL";
+
+    public static void main(String[] args) throws Exception {
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getUptime();
+        Configuration.GUI = false;
+        String spec = args.length > 0 ? args[0] : "stud.g09.AI";
+
+        long t0 = System.nanoTime();
+        Engine white = (Engine) FarmWorker.newPlayer(spec), black = (Engine) FarmWorker.newPlayer(spec);
+        long t1 = System.nanoTime();
+        new Game(white, black);
+        long t2 = System.nanoTime();
+        Move reply = black.findMove(Move.parseMove(FIRST));
+        long t3 = System.nanoTime();
+
+        System.out.printf("jvm %dms, construct %.0fms, playGame (warm-up) %.0fms, first move %.0fms %d nodes (%s), "
+                        + "uptime at first move %dms%n",
+                jvmStart, (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6, black.stats().nodes(), reply,
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
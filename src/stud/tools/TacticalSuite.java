@@ -0,0 +1,365 @@
+package stud.tools;
+
+import core.board.Board;
+import core.board.PieceColor;
+import core.game.Move;
+import core.game.ui.Configuration;
+import core.player.AI;
+import core.player.Player;
+import stud.core.BoardSync;
+import stud.core.Deadline;
+import stud.core.Engine;
+import stud.core.EngineBoard;
+import stud.core.EngineStats;
+import stud.core.FastBoard;
+import stud.core.Instrumented;
+import stud.core.Moves;
+import stud.core.PairMoveGenerator;
+import stud.core.ThreatSearcher;
+import stud.core.Threats;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 战术题库：检查提速没有丢掉战术、战术修正没有拖慢速度。
+ *
+ * 题库是 UTF-8 文本，一行一题，# 开头的是注释：
+ * <pre>
+ * 名字  轮到(W/B)  着法...  =  期望着法...
+ * win-3  B  JJKK KLLM ...  =  MMNN MNNO
+ * </pre>
+ * 着法是从开局起的全部着法（每手四个字母，白方先走），轮到的一方用来核对着法数；
+ * 期望着法是能赢或能守住的几手，走出其中任意一手（两子不分先后）就算解出。
+ * 名字里第一个“-”之前的部分是题型（例如 win、def），报告按题型分别计数。
+ *
+ * 跑题：每个棋手在每道题上按各个时限各想一次。stud 引擎（Engine 的子类）用 go 严格限时，记节点数；
+ * 其他 core.player.AI 按它自己的时间控制走一步，用时不超过时限且走对才算在该时限解出。
+ * 解题时间和节点数取解出的最小时限那一次的实际值。各题之间并行，每道题用自己新建的棋手实例；
+ * 线程数超过 CPU 核数时各题会互相抢时间，限时结果就不准了。
+ *
+ * 出题（-make）：从开局按生成器的前几手随机走，遇到轮到的一方能算杀（win）、或者对方冲四后
+ * 只有一部分堵法守得住（def）的局面就收为一题。期望着法用深两层的算杀来定：能杀的全部冲四第一手、
+ * 堵完后对方算不出杀的全部堵法。只收必须两子一起堵的防守题，这时堵法是穷举的。
+ *
+ * 用法：java stud.tools.TacticalSuite [-limits 100,300,1000] [-threads N] &lt;题库&gt; &lt;棋手&gt;...
+ *      java stud.tools.TacticalSuite -make 题数 [-depth 算杀深度] [-seed 种子] &lt;输出题库&gt;
+ * 棋手写法同 Farm，例如 stud.g09.SmartAI、stud.g99.AI:MoveTimeMs=300。
+ * asset/tactics.txt 是用默认参数 -make 40 出的 40 道题。
+ */
+public class TacticalSuite {
+
+    /** 一道题 */
+    static final class Position {
+        final String name;
+        final List<Move> moves;
+        final Set<Integer> expected;
+
+        Position(String name, List<Move> moves, Set<Integer> expected) {
+            this.name = name;
+            this.moves = moves;
+            this.expected = expected;
+        }
+
+        String kind() {
+            int dash = name.indexOf('-');
+            return dash < 0 ? name : name.substring(0, dash);
+        }
+
+        boolean solvedBy(Move m) {
+            return m != null && expected.contains(normalize(Moves.of(m)));
+        }
+    }
+
+    /** 一个棋手在一道题上的结果：各时限是否解出，解题时间和节点（没解出为 -1），最大时限下的着法 */
+    static final class Outcome {
+        final boolean[] solved;
+        long millis = -1, nodes = -1;
+        Move last;
+
+        Outcome(int limits) {
+            solved = new boolean[limits];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Configuration.GUI = false;
+        long[] limits = {100, 300, 1000};
+        int threads = Runtime.getRuntime().availableProcessors();
+        int make = 0, depth = 4;
+        long seed = 20240601L;
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i += 2) {
+            switch (args[i]) {
+                case "-limits": limits = parseLimits(args[i + 1]); break;
+                case "-threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "-make": make = Integer.parseInt(args[i + 1]); break;
+                case "-depth": depth = Integer.parseInt(args[i + 1]); break;
+                case "-seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (make > 0 && i < args.length) {
+            make(Paths.get(args[i]), make, depth, seed);
+            return;
+        }
+        if (args.length - i < 2) {
+            System.out.println("usage: TacticalSuite [-limits ms,ms...] [-threads N] <suite> <player>...");
+            System.out.println("       TacticalSuite -make count [-depth d] [-seed s] <suite>");
+            return;
+        }
+        List<Position> suite = load(Paths.get(args[i]));
+        System.out.printf("%d positions, limits %s ms, %d threads%n", suite.size(), join(limits), threads);
+        for (int k = i + 1; k < args.length; k++) report(args[k], suite, limits, run(args[k], suite, limits, threads));
+    }
+
+    // ---------------------------------------------------------------- 跑题
+
+    /** 各题并行跑，结果按题目顺序返回 */
+    static Outcome[] run(String spec, List<Position> suite, long[] limits, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Outcome>> futures = new ArrayList<>();
+            for (Position p : suite) futures.add(pool.submit(() -> solve(spec, p, limits)));
+            Outcome[] out = new Outcome[suite.size()];
+            for (int k = 0; k < out.length; k++) out[k] = futures.get(k).get();
+            return out;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static Outcome solve(String spec, Position p, long[] limits) throws Exception {
+        Outcome o = new Outcome(limits.length);
+        Player player = FarmWorker.newPlayer(spec);
+        if (player instanceof Engine) {
+            Engine e = (Engine) player;
+            e.warmUp();
+            for (int k = 0; k < limits.length; k++) {
+                e.newGame();
+                e.prepare();
+                long nodes = e.stats().nodes(), start = System.nanoTime();
+                Move m = e.go(p.moves, limits[k]);
+                record(o, k, p.solvedBy(m), m, System.nanoTime() - start, e.stats().nodes() - nodes);
+            }
+            return o;
+        }
+        if (!(player instanceof AI)) throw new IllegalArgumentException(spec + " is not an AI");
+        // 限不了时：走一步，按实际用时套到各个时限上
+        AI ai = (AI) player;
+        Board board = new Board();
+        int n = p.moves.size();
+        for (int k = 0; k < n - 1; k++) board.makeMove(p.moves.get(k));
+        ai.setBoard(board);
+        ai.setColor(BoardSync.sideAfter(n) == EngineBoard.WHITE ? PieceColor.WHITE : PieceColor.BLACK);
+        long nodes = player instanceof Instrumented ? ((Instrumented) player).stats().nodes() : 0;
+        long start = System.nanoTime();
+        Move m = ai.findMove(n == 0 ? null : p.moves.get(n - 1));
+        long elapsed = System.nanoTime() - start;
+        nodes = player instanceof Instrumented ? ((Instrumented) player).stats().nodes() - nodes : -1;
+        for (int k = 0; k < limits.length; k++) {
+            record(o, k, p.solvedBy(m) && elapsed <= limits[k] * 1_000_000, m, elapsed, nodes);
+        }
+        return o;
+    }
+
+    private static void record(Outcome o, int k, boolean solved, Move m, long nanos, long nodes) {
+        o.solved[k] = solved;
+        o.last = m;
+        if (solved && o.millis < 0) {
+            o.millis = nanos / 1_000_000;
+            o.nodes = nodes;
+        }
+    }
+
+    private static void report(String spec, List<Position> suite, long[] limits, Outcome[] out) {
+        System.out.println();
+        System.out.println(spec);
+        System.out.printf("  %-16s %8s %12s  %s%n", "position", "ms", "nodes", "move");
+        for (int k = 0; k < out.length; k++) {
+            Outcome o = out[k];
+            System.out.printf("  %-16s %8s %12s  %-6s %s%n", suite.get(k).name, o.millis < 0 ? "-" : o.millis,
+                    o.nodes < 0 ? "-" : o.nodes, o.last, o.millis < 0 ? "unsolved" : "");
+        }
+        List<String> kinds = new ArrayList<>();
+        for (Position p : suite) if (!kinds.contains(p.kind())) kinds.add(p.kind());
+        StringBuilder head = new StringBuilder(String.format("  %-8s %8s", "limit", "solved"));
+        for (String kind : kinds) head.append(String.format(" %8s", kind));
+        System.out.println(head);
+        for (int l = 0; l < limits.length; l++) {
+            int total = 0;
+            StringBuilder row = new StringBuilder();
+            for (String kind : kinds) {
+                int solved = 0, count = 0;
+                for (int k = 0; k < out.length; k++) {
+                    if (!suite.get(k).kind().equals(kind)) continue;
+                    count++;
+                    if (out[k].solved[l]) solved++;
+                }
+                total += solved;
+                row.append(String.format(" %8s", solved + "/" + count));
+            }
+            System.out.printf("  %-8s %8s%s%n", limits[l] + "ms", total + "/" + out.length, row);
+        }
+    }
+
+    // ---------------------------------------------------------------- 题库文件
+
+    static List<Position> load(Path file) throws IOException {
+        List<Position> suite = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int no = 0;
+            while ((line = in.readLine()) != null) {
+                no++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                try {
+                    suite.add(parse(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + no + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return suite;
+    }
+
+    static Position parse(String line) {
+        String[] f = line.split("\\s+");
+        int eq = Arrays.asList(f).indexOf("=");
+        if (f.length < 4 || eq < 2) throw new IllegalArgumentException("expected: name side moves... = moves...");
+        Board check = new Board();
+        List<Move> moves = new ArrayList<>();
+        for (int k = 2; k < eq; k++) {
+            Move m = f[k].length() == 4 ? Move.parseMove(f[k]) : null;
+            if (m == null || !check.legalMove(m)) throw new IllegalArgumentException("illegal move " + f[k]);
+            check.makeMove(m);
+            moves.add(m);
+        }
+        String side = BoardSync.sideAfter(moves.size()) == EngineBoard.WHITE ? "W" : "B";
+        if (!f[1].equalsIgnoreCase(side)) throw new IllegalArgumentException("side to move is " + side + ", not " + f[1]);
+        Set<Integer> expected = new HashSet<>();
+        for (int k = eq + 1; k < f.length; k++) {
+            Move m = f[k].length() == 4 ? Move.parseMove(f[k]) : null;
+            if (m == null || !check.legalMove(m)) throw new IllegalArgumentException("illegal expected move " + f[k]);
+            expected.add(normalize(Moves.of(m)));
+        }
+        if (expected.isEmpty()) throw new IllegalArgumentException("no expected move");
+        return new Position(f[0], moves, expected);
+    }
+
+    /** 两子不分先后 */
+    private static int normalize(int move) {
+        int a = Moves.first(move), b = Moves.second(move);
+        return a < b ? move : Moves.pack(b, a);
+    }
+
+    private static long[] parseLimits(String s) {
+        String[] f = s.split(",");
+        long[] out = new long[f.length];
+        for (int k = 0; k < f.length; k++) out[k] = Long.parseLong(f[k]);
+        Arrays.sort(out);
+        return out;
+    }
+
+    private static String join(long[] a) {
+        StringBuilder sb = new StringBuilder();
+        for (long x : a) sb.append(sb.length() > 0 ? "," : "").append(x);
+        return sb.toString();
+    }
+
+    // ---------------------------------------------------------------- 出题
+
+    static void make(Path file, int count, int depth, long seed) throws IOException {
+        Random rnd = new Random(seed);
+        PairMoveGenerator gen = new PairMoveGenerator(10, 45);
+        ThreatSearcher searcher = new ThreatSearcher(new EngineStats(), new Deadline(), 200000, null);
+        int[] list = new int[256], defences = new int[256], partners = new int[0];
+        int[] cells = new int[EngineBoard.CELLS], scores = new int[EngineBoard.CELLS];
+        Set<Long> seen = new HashSet<>();
+        int wins = 0, defs = 0;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.printf("# TacticalSuite -make %d -depth %d -seed %d%n", count, depth, seed);
+            while (wins + defs < count) {
+                FastBoard b = SearchBench.opening();
+                List<Integer> played = new ArrayList<>();
+                while (b.winner() == EngineBoard.EMPTY && wins + defs < count) {
+                    int me = b.sideToMove(), op = 3 - me;
+                    if (b.winningMove(me) == Moves.NONE && seen.add(b.hash())) {
+                        List<Integer> answers = new ArrayList<>();
+                        String kind = null;
+                        if (b.fours(op) == 0 && wins <= count / 2) {
+                            // depth 内有杀才出题；期望着法收深两层也能杀的全部第一手，引擎找到较长的杀也算对
+                            int np = Threats.attackPoints(b, me, 20, cells, scores);
+                            int na = Threats.attacks(b, me, Arrays.copyOf(cells, np), np, 1, list);
+                            boolean found = false;
+                            for (int k = 0; k < na; k++) {
+                                if (searcher.wins(b, list[k], depth + 2)) {
+                                    answers.add(list[k]);
+                                    found |= searcher.wins(b, list[k], depth);
+                                }
+                            }
+                            if (found) kind = "win";
+                        } else if (b.fours(op) > 0 && defs <= count / 2 && !singleBlock(b, op, cells)) {
+                            // 守得住：堵完以后对方既不能一手成六，深两层也算不出杀
+                            int nd = Threats.defences(b, op, partners, 0, defences);
+                            for (int k = 0; k < nd; k++) {
+                                b.play(defences[k]);
+                                if (b.winningMove(op) == Moves.NONE && searcher.search(b, depth + 2) == Moves.NONE) {
+                                    answers.add(defences[k]);
+                                }
+                                b.undo();
+                            }
+                            if (!answers.isEmpty() && answers.size() < nd) kind = "def";
+                        }
+                        if (kind != null) {
+                            int no = kind.equals("win") ? ++wins : ++defs;
+                            out.println(line(kind + "-" + no, me, played, answers));
+                            if (kind.equals("win")) break;          // 这盘已经分出胜负，换一盘
+                        }
+                    }
+                    int n = gen.generate(b, list);
+                    if (n == 0) break;
+                    int m = list[rnd.nextInt(Math.min(n, 6))];
+                    b.play(m);
+                    played.add(m);
+                }
+            }
+        }
+        System.out.printf("%d win + %d def positions written to %s%n", wins, defs, file);
+    }
+
+    /** 对方的威胁里有一格能单独全堵住（这时另一子随便下，堵法列举不全，不出这种题） */
+    private static boolean singleBlock(FastBoard b, int attacker, int[] cells) {
+        int nc = b.threatCells(attacker, cells);
+        for (int k = 0; k < nc; k++) {
+            b.put(cells[k], 3 - attacker);
+            boolean ok = b.fours(attacker) == 0;
+            b.clear(cells[k]);
+            if (ok) return true;
+        }
+        return false;
+    }
+
+    private static String line(String name, int me, List<Integer> played, List<Integer> answers) {
+        StringBuilder sb = new StringBuilder(name).append(' ').append(me == EngineBoard.WHITE ? 'W' : 'B');
+        for (int m : played) sb.append(' ').append(Moves.toString(m));
+        sb.append(" =");
+        for (int m : answers) sb.append(' ').append(Moves.toString(m));
+        return sb.toString();
+    }
+}
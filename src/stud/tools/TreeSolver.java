@@ -0,0 +1,345 @@
+package stud.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * 步骤 1 的博弈树 Alpha-Beta 求解器（README 里 AlphaBetaPruning 的大规模版本），能处理上千万个结点的 tree.txt。
+ *
+ * 输入、输出和剪枝的记法与 README 完全相同：每行一个“结点序号 父节点序号 结点估值”三元组（父节点为 -1 的是根，
+ * 第一行可以是表头；字段按 tab 分，没有 tab 时按空白分，字段里只保留数字和负号），
+ * 子结点按序号从小到大访问，根是 MAX 层；输出第一行“根 走步 估值”，其后每次剪枝一行“父结点 被剪的第一个子结点 类型”，
+ * MAX 结点处的剪枝记 beta，MIN 结点处的记 alpha，按发生的先后排列。
+ *
+ * 和 README 版本的区别只在实现上：
+ * <ul>
+ *   <li>按字节流解析，不建 String，三元组先存进三个可增长的 int 数组；</li>
+ *   <li>序号连续时直接减去最小序号作下标，否则排序后二分查找，建成 CSR 形式的树
+ *       （children[offsets[k] .. offsets[k+1]) 是结点 k 的子结点，已按序号排好）；</li>
+ *   <li>Alpha-Beta 用显式栈，树再深也不会栈溢出；</li>
+ *   <li>剪枝记录边算边经缓冲写到临时文件，最后接在第一行后面输出，不在内存里攒。</li>
+ * </ul>
+ * 每个结点最终占 3 个 int（估值、偏移、在父结点子表里的一项），建树时的峰值约为 7 个 int（可增长数组留有余量）。
+ *
+ * 用法：java stud.tools.TreeSolver [树文件（默认 tree.txt）] [输出文件（默认标准输出）]
+ */
+public class TreeSolver {
+
+    static final int NONE = -1;
+
+    // 按 key（结点在 CSR 里的下标）索引，ParallelTreeSolver 直接读
+    final int[] value;
+    final int[] offsets;
+    final int[] children;
+    final int root;
+    // key 换回序号：连续时加 minId，否则查 sortedIds
+    private final int minId;
+    private final int[] sortedIds;
+
+    private TreeSolver(int[] value, int[] offsets, int[] children, int root, int minId, int[] sortedIds) {
+        this.value = value;
+        this.offsets = offsets;
+        this.children = children;
+        this.root = root;
+        this.minId = minId;
+        this.sortedIds = sortedIds;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path in = Paths.get(args.length > 0 ? args[0] : "tree.txt");
+        long t0 = System.nanoTime();
+        TreeSolver tree = read(in);
+        if (tree == null) {
+            System.out.println("Error: Failed to load tree. Please check " + in + " format.");
+            return;
+        }
+        long t1 = System.nanoTime();
+        OutputStream out = args.length > 1 ? Files.newOutputStream(Paths.get(args[1])) : System.out;
+        try (OutputStream o = new BufferedOutputStream(out, 1 << 16)) {
+            tree.solve(o);
+        }
+        System.err.printf("%d nodes: read %.1fs, search %.1fs%n", tree.size(), (t1 - t0) / 1e9,
+                (System.nanoTime() - t1) / 1e9);
+    }
+
+    public int size() {
+        return value.length;
+    }
+
+    int id(int key) {
+        return sortedIds == null ? key + minId : sortedIds[key];
+    }
+
+    boolean leaf(int key) {
+        return offsets[key] == offsets[key + 1];
+    }
+
+    /** 求解并把结果写到 out：第一行走步，其后是剪枝记录 */
+    public void solve(OutputStream out) throws IOException {
+        Path pruned = Files.createTempFile("tree-pruned", ".txt");
+        try {
+            int[] result;
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(pruned),
+                    StandardCharsets.UTF_8), 1 << 16)) {
+                result = search(w);
+            }
+            String best = result[1] == NONE ? "-1" : String.valueOf(id(result[1]));
+            out.write((id(root) + " " + best + " " + result[0] + "\n").getBytes(StandardCharsets.UTF_8));
+            Files.copy(pruned, out);
+        } finally {
+            Files.deleteIfExists(pruned);
+        }
+    }
+
+    /**
+     * 显式栈上的 Alpha-Beta，返回根的 {估值, 最佳子结点 key}。
+     * 栈的第 d 层是深度 d 的结点，偶数层 MAX、奇数层 MIN；叶子不入栈，直接在父结点那一层处理。
+     */
+    int[] search(Writer pruned) throws IOException {
+        if (leaf(root)) return new int[]{value[root], NONE};
+        Stack s = new Stack();
+        s.push(root, offsets[root], Integer.MIN_VALUE, Integer.MAX_VALUE, true);
+        while (true) {
+            int d = s.top;
+            int node = s.node[d];
+            if (s.next[d] < offsets[node + 1]) {
+                int child = children[s.next[d]++];
+                if (leaf(child)) {
+                    s.update(d, value[child], child, this, pruned);
+                } else {
+                    boolean max = (d & 1) == 1;
+                    s.push(child, offsets[child], s.alpha[d], s.beta[d], max);
+                }
+                continue;
+            }
+            // 子结点都看完了（或剪掉了），把估值交给上一层
+            int v = s.best[d];
+            if (d == 0) return new int[]{v, s.bestChild[0]};
+            s.top--;
+            s.update(d - 1, v, node, this, pruned);
+        }
+    }
+
+    /** 搜索栈：每层一个结点的状态，按树高增长 */
+    private static final class Stack {
+        int[] node = new int[64], next = new int[64], alpha = new int[64], beta = new int[64];
+        int[] best = new int[64], bestChild = new int[64];
+        int top = -1;
+
+        void push(int key, int first, int a, int b, boolean max) {
+            if (++top == node.length) {
+                int n = node.length * 2;
+                node = Arrays.copyOf(node, n);
+                next = Arrays.copyOf(next, n);
+                alpha = Arrays.copyOf(alpha, n);
+                beta = Arrays.copyOf(beta, n);
+                best = Arrays.copyOf(best, n);
+                bestChild = Arrays.copyOf(bestChild, n);
+            }
+            node[top] = key;
+            next[top] = first;
+            alpha[top] = a;
+            beta[top] = b;
+            best[top] = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            bestChild[top] = NONE;
+        }
+
+        /** 第 d 层的结点收到子结点 child 的估值 v；发生剪枝时记下被剪的第一个兄弟，并跳过其余的 */
+        void update(int d, int v, int child, TreeSolver t, Writer pruned) throws IOException {
+            boolean max = (d & 1) == 0;
+            if (max) {
+                if (v > best[d]) {
+                    best[d] = v;
+                    bestChild[d] = child;
+                }
+                alpha[d] = Math.max(alpha[d], best[d]);
+            } else {
+                if (v < best[d]) {
+                    best[d] = v;
+                    bestChild[d] = child;
+                }
+                beta[d] = Math.min(beta[d], best[d]);
+            }
+            if (beta[d] <= alpha[d]) {
+                int end = t.offsets[node[d] + 1];
+                if (next[d] < end) {
+                    pruned.write(t.id(node[d]) + " " + t.id(t.children[next[d]]) + (max ? " beta\n" : " alpha\n"));
+                }
+                next[d] = end;
+            }
+        }
+    }
+
+    /** 读入树文件；没有根时返回 null */
+    public static TreeSolver read(Path file) throws IOException {
+        Triples t = new Triples();
+        try (InputStream in = Files.newInputStream(file)) {
+            t.parse(in);
+        }
+        return t.build();
+    }
+
+    /** 解析出的三元组，按文件顺序 */
+    private static final class Triples {
+        int[] id = new int[1024], parent = new int[1024], value = new int[1024];
+        int n;
+        int rootId;
+        boolean hasRoot;
+
+        private byte[] line = new byte[256];
+        private boolean first = true;
+        private final long[] parts = new long[3];
+
+        void parse(InputStream in) throws IOException {
+            byte[] buf = new byte[1 << 16];
+            int len = 0;
+            for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] == '\n') {
+                        endLine(len);
+                        len = 0;
+                    } else {
+                        if (len == line.length) line = Arrays.copyOf(line, len * 2);
+                        line[len++] = buf[i];
+                    }
+                }
+            }
+            endLine(len);
+        }
+
+        private void endLine(int len) {
+            if (blank(len)) return;
+            int k = parseLine(len);
+            // 第一行可以是表头；后面不成三元组的行，README 版本也是跳过
+            if (k == 3) add();
+            else if (k < 0 && !first) System.out.println("Skipping invalid line (parse error): "
+                    + new String(line, 0, len, StandardCharsets.UTF_8).trim());
+            first = false;
+        }
+
+        private boolean blank(int len) {
+            for (int i = 0; i < len; i++) if (!isSpace(line[i])) return false;
+            return true;
+        }
+
+        /**
+         * 取出一行的前三个有效字段放进 parts，返回个数（不足三个时照实返回），字段写错（如“1-2”、超出 int）时返回 -1。
+         * 有 tab 就按 tab 分字段，否则按空白分；字段里数字和负号以外的字符都丢掉，只剩负号或什么都不剩的字段不算。
+         */
+        private int parseLine(int len) {
+            boolean tabs = false;
+            for (int i = 0; i < len; i++) if (line[i] == '\t') tabs = true;
+            int k = 0;
+            int i = 0;
+            while (i < len && k < 3) {
+                long v = 0;
+                boolean neg = false, digits = false, bad = false;
+                for (; i < len; i++) {
+                    byte c = line[i];
+                    if (tabs ? c == '\t' : isSpace(c)) break;
+                    if (c >= '0' && c <= '9') {
+                        v = v * 10 + (c - '0');
+                        digits = true;
+                        if (v > Integer.MAX_VALUE + 1L) bad = true;
+                    } else if (c == '-') {
+                        if (digits || neg) bad = true;
+                        neg = true;
+                    }
+                }
+                i++;
+                if (!digits) {
+                    if (neg && bad) return -1;
+                    continue;
+                }
+                v = neg ? -v : v;
+                if (bad || v > Integer.MAX_VALUE) return -1;
+                parts[k++] = v;
+            }
+            return k;
+        }
+
+        private static boolean isSpace(byte c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+        }
+
+        private void add() {
+            if (n == id.length) {
+                id = Arrays.copyOf(id, n * 2);
+                parent = Arrays.copyOf(parent, n * 2);
+                value = Arrays.copyOf(value, n * 2);
+            }
+            id[n] = (int) parts[0];
+            parent[n] = (int) parts[1];
+            value[n] = (int) parts[2];
+            if (parent[n] == -1) {
+                rootId = id[n];
+                hasRoot = true;
+            }
+            n++;
+        }
+
+        /** 建 CSR；父结点不存在的结点挂不上树，和 README 版本一样忽略 */
+        TreeSolver build() {
+            if (!hasRoot) return null;
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                min = Math.min(min, id[i]);
+                max = Math.max(max, id[i]);
+            }
+            // 序号基本连续（空洞不超过一半）时直接作下标
+            int[] sorted = null;
+            int size;
+            if ((long) max - min < 2L * n) {
+                size = max - min + 1;
+            } else {
+                sorted = Arrays.copyOf(id, n);
+                Arrays.sort(sorted);
+                size = n;
+            }
+
+            int[] keyValue = new int[size];
+            int[] offsets = new int[size + 1];
+            for (int i = 0; i < n; i++) {
+                id[i] = key(id[i], min, size, sorted);
+                parent[i] = parent[i] == -1 ? NONE : key(parent[i], min, size, sorted);
+                keyValue[id[i]] = value[i];
+                if (parent[i] != NONE) offsets[parent[i] + 1]++;
+            }
+            value = null;
+            for (int k = 1; k <= size; k++) offsets[k] += offsets[k - 1];
+            // offsets[k] 先当作 k 的写入位置，填完变成 k 的结束位置，再整体右移一格
+            int[] children = new int[offsets[size]];
+            for (int i = 0; i < n; i++) {
+                if (parent[i] != NONE) children[offsets[parent[i]]++] = id[i];
+            }
+            id = null;
+            parent = null;
+            System.arraycopy(offsets, 0, offsets, 1, size);
+            offsets[0] = 0;
+            for (int k = 0; k < size; k++) {
+                if (offsets[k + 1] - offsets[k] > 1) Arrays.sort(children, offsets[k], offsets[k + 1]);
+            }
+            return new TreeSolver(keyValue, offsets, children, key(rootId, min, size, sorted), min, sorted);
+        }
+
+        /** 序号换成下标，不在范围里（排序时为不存在）的序号返回 NONE */
+        private static int key(int id, int min, int size, int[] sorted) {
+            if (sorted == null) {
+                long k = (long) id - min;
+                return k < 0 || k >= size ? NONE : (int) k;
+            }
+            int k = Arrays.binarySearch(sorted, id);
+            return k < 0 ? NONE : k;
+        }
+    }
+}
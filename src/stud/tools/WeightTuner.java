@@ -0,0 +1,273 @@
+package stud.tools;
+
+import stud.core.EngineBoard;
+import stud.core.FastBoard;
+import stud.core.Moves;
+import stud.core.PatternEvaluator;
+import stud.core.Weights;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Texel 式估值调参：从棋谱中取出局面和最终胜负，拟合某个引擎 PatternEvaluator 的棋型权重和防守系数。
+ *
+ * 模型：eval = Σ w[k]·(我方棋型数[k] - d·对方棋型数[k])，胜率 p = sigmoid(eval / K)，
+ * 棋型数就是估值器用的 FastBoard.pattern，初始权重取前缀对应引擎当前的估值器（g09、g13、g99）。
+ * 先用当前权重求出使损失最小的 K，再在对数空间里用 Adam 最小化交叉熵（logistic loss）。
+ * 梯度按局面分块用 fork/join 并行计算。
+ *
+ * 用法：java stud.tools.WeightTuner &lt;棋谱文件&gt; [输出文件] [前缀 g09|g13|g99] [迭代次数]
+ * 输出为 weights.properties 格式，估值器启动时读取。输出文件已存在时只替换本前缀的各行，其他引擎的权重和注释原样保留。
+ */
+public class WeightTuner {
+
+    private static final int F = FastBoard.PATTERNS;
+    // 每个局面存双方各 F 个棋型计数
+    private static final int STRIDE = 2 * F;
+    private static final int SPLIT = 4096;
+    private static final int SKIP_OPENING = 2;
+    // 对数空间里向初始权重收缩的 L2 正则系数，数据少时避免权重漂移
+    private static final double PRIOR = 1e-3;
+
+    private int[] features = new int[1 << 16];
+    private float[] outcomes = new float[1 << 12];
+    private int size = 0;
+
+    // 参数：w[1..F-1] 为可调权重 (w[0] 为成六，固定)，最后一个为防守系数
+    private final double[] weights = new double[F];
+    private double defence;
+    private double k = 1;
+
+    public WeightTuner(String prefix) {
+        PatternEvaluator initial = evaluator(prefix);
+        for (int i = 0; i < F; i++) weights[i] = initial.score(i);
+        defence = initial.defence();
+    }
+
+    /** 前缀对应引擎的估值器，已经读过 weights.properties 里该前缀的权重 */
+    private static PatternEvaluator evaluator(String prefix) {
+        switch (prefix) {
+            case "g09": return stud.g09.SmartAI.patternEvaluator();
+            case "g13": return stud.g13.AI.patternEvaluator();
+            case "g99": return stud.g99.AI.patternEvaluator();
+            default: throw new IllegalArgumentException("unknown weight prefix " + prefix + " (g09, g13 or g99)");
+        }
+    }
+
+    // --- 数据 ---
+
+    /** 回放棋谱中的每一局，收集（轮到谁下的视角下的）棋型计数和最终胜负 */
+    public void load(String file) throws IOException {
+        int[] mine = new int[F];
+        int[] ops = new int[F];
+        long games = 0;
+        try (GameRecordReader in = new GameRecordReader(Paths.get(file))) {
+            for (GameRecord r : in) {
+                char end = r.getEndReason();
+                if (end != 'F' && end != 'M') continue; // 超时、异常、非法着法的棋局不代表局面好坏
+                games++;
+                FastBoard board = SearchBench.opening();
+                for (int i = 0; i < r.moveCount() - 1; i++) {
+                    board.play(Moves.of(r.move(i)));
+                    if (i + 1 < SKIP_OPENING) continue;
+
+                    int toMove = board.sideToMove();
+                    for (int k = 0; k < F; k++) {
+                        mine[k] = board.pattern(toMove, k);
+                        ops[k] = board.pattern(3 - toMove, k);
+                    }
+                    if (mine[FastBoard.P_WIN] > 0 || ops[FastBoard.P_WIN] > 0) break;
+
+                    add(mine, ops, outcome(r, toMove));
+                }
+            }
+        }
+        System.out.printf("loaded %d positions from %d games%n", size, games);
+    }
+
+    // 框架中先手执白
+    private static float outcome(GameRecord r, int toMove) {
+        if (r.getResult() == GameRecord.DRAW) return 0.5f;
+        int winner = r.getResult() == GameRecord.FIRST_WIN ? EngineBoard.WHITE : EngineBoard.BLACK;
+        return winner == toMove ? 1f : 0f;
+    }
+
+    private void add(int[] mine, int[] ops, float y) {
+        if ((size + 1) * STRIDE > features.length) features = Arrays.copyOf(features, features.length * 2);
+        if (size + 1 > outcomes.length) outcomes = Arrays.copyOf(outcomes, outcomes.length * 2);
+        System.arraycopy(mine, 0, features, size * STRIDE, F);
+        System.arraycopy(ops, 0, features, size * STRIDE + F, F);
+        outcomes[size++] = y;
+    }
+
+    // --- 损失与梯度 ---
+
+    /**
+     * 并行计算一段局面的损失和梯度。
+     * 结果数组：[0] 损失和，[1..F] 对 w 的梯度，[F+1] 对 d 的梯度
+     */
+    private class Gradient extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final double[] w;
+        private final double d, scale;
+
+        Gradient(int from, int to, double[] w, double d, double scale) {
+            this.from = from;
+            this.to = to;
+            this.w = w;
+            this.d = d;
+            this.scale = scale;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > SPLIT) {
+                int mid = (from + to) >>> 1;
+                Gradient left = new Gradient(from, mid, w, d, scale);
+                left.fork();
+                double[] right = new Gradient(mid, to, w, d, scale).compute();
+                double[] l = left.join();
+                for (int i = 0; i < l.length; i++) l[i] += right[i];
+                return l;
+            }
+            double[] g = new double[F + 2];
+            for (int n = from; n < to; n++) {
+                int base = n * STRIDE;
+                double my = 0, op = 0;
+                for (int i = 0; i < F; i++) {
+                    my += w[i] * features[base + i];
+                    op += w[i] * features[base + F + i];
+                }
+                double p = sigmoid((my - d * op) / scale);
+                double y = outcomes[n];
+                g[0] += -(y * Math.log(p + 1e-12) + (1 - y) * Math.log(1 - p + 1e-12));
+                double e = (p - y) / scale;
+                for (int i = 0; i < F; i++) {
+                    g[1 + i] += e * (features[base + i] - d * features[base + F + i]);
+                }
+                g[F + 1] += -e * op;
+            }
+            return g;
+        }
+    }
+
+    private static double sigmoid(double x) {
+        return 1 / (1 + Math.exp(-x));
+    }
+
+    private double[] gradient(ForkJoinPool pool, double[] w, double d, double scale) {
+        return pool.invoke(new Gradient(0, size, w, d, scale));
+    }
+
+    /** 在当前权重下，用黄金分割搜索缩放系数 K */
+    private void fitScale(ForkJoinPool pool) {
+        double lo = Math.log(1), hi = Math.log(1e12);
+        double phi = (Math.sqrt(5) - 1) / 2;
+        for (int it = 0; it < 60; it++) {
+            double a = hi - phi * (hi - lo), b = lo + phi * (hi - lo);
+            double la = gradient(pool, weights, defence, Math.exp(a))[0];
+            double lb = gradient(pool, weights, defence, Math.exp(b))[0];
+            if (la < lb) hi = b;
+            else lo = a;
+        }
+        k = Math.exp((lo + hi) / 2);
+    }
+
+    /** 在对数空间做 Adam，保证权重为正；并保持棋型从强到弱的权重单调不增 */
+    public void tune(int iterations, int threads) {
+        if (size == 0) throw new IllegalStateException("no positions loaded");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            fitScale(pool);
+            System.out.printf("K = %.1f, initial loss = %.6f%n", k, gradient(pool, weights, defence, k)[0] / size);
+
+            int n = F; // 参数：log w[1..F-1] 与 log d
+            double[] theta = new double[n];
+            for (int i = 1; i < F; i++) theta[i - 1] = Math.log(Math.max(1, weights[i]));
+            theta[n - 1] = Math.log(defence);
+            double[] theta0 = theta.clone();
+            double[] m = new double[n], v = new double[n];
+            double lr = 0.01, b1 = 0.9, b2 = 0.999;
+
+            for (int t = 1; t <= iterations; t++) {
+                double[] g = gradient(pool, weights, defence, k);
+                for (int i = 0; i < n; i++) {
+                    // 链式法则：dL/dθ = dL/dx · x
+                    double gi = (i < n - 1) ? g[2 + i] * weights[i + 1] : g[F + 1] * defence;
+                    gi = gi / size + 2 * PRIOR * (theta[i] - theta0[i]);
+                    m[i] = b1 * m[i] + (1 - b1) * gi;
+                    v[i] = b2 * v[i] + (1 - b2) * gi * gi;
+                    double mh = m[i] / (1 - Math.pow(b1, t)), vh = v[i] / (1 - Math.pow(b2, t));
+                    theta[i] -= lr * mh / (Math.sqrt(vh) + 1e-12);
+                }
+                for (int i = 1; i < n - 1; i++) theta[i] = Math.min(theta[i], theta[i - 1]);
+                theta[0] = Math.min(theta[0], Math.log(weights[FastBoard.P_WIN]));
+                for (int i = 1; i < F; i++) weights[i] = Math.exp(theta[i - 1]);
+                theta[n - 1] = Math.max(Math.log(0.25), Math.min(Math.log(8), theta[n - 1]));
+                defence = Math.exp(theta[n - 1]);
+
+                if (t % 50 == 0 || t == iterations) {
+                    System.out.printf("iter %d loss = %.6f%n", t, g[0] / size);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** 写进 file：保留其中不属于 prefix 的行（weights.properties 里放着所有引擎的权重），再接上本次的结果 */
+    public void save(String file, String prefix) throws IOException {
+        Path path = Paths.get(file);
+        String header = "# " + prefix + " generated by stud.tools.WeightTuner";
+        List<String> kept = new ArrayList<>();
+        if (Files.isRegularFile(path)) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String t = line.trim();
+                if (t.startsWith(header) || t.startsWith(prefix + ".")) continue;
+                kept.add(line);
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (String line : kept) {
+                out.write(line);
+                out.newLine();
+            }
+            out.write(header + " from " + size + " positions, K = " + Math.round(k));
+            out.newLine();
+            for (int i = 1; i < F; i++) {
+                out.write(prefix + "." + PatternEvaluator.KEYS[i] + " = " + Math.round(weights[i]));
+                out.newLine();
+            }
+            out.write(prefix + ".DEFENCE = " + String.format("%.4f", defence));
+            out.newLine();
+        }
+        System.out.println("weights written to " + file);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: WeightTuner <records> [out] [prefix] [iterations]");
+            return;
+        }
+        String out = args.length > 1 ? args[1] : Weights.DEFAULT_FILE;
+        String prefix = args.length > 2 ? args[2] : "g09";
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        WeightTuner tuner = new WeightTuner(prefix);
+        tuner.load(args[0]);
+        tuner.tune(iterations, Runtime.getRuntime().availableProcessors());
+        tuner.save(out, prefix);
+    }
+}